@@ -1,6 +1,8 @@
 package com.merigaumata.apigateway.filter;
 
+import com.merigaumata.apigateway.service.InternalAssertionSigner;
 import com.merigaumata.apigateway.service.JwtValidationService;
+import com.nimbusds.jose.JOSEException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
@@ -12,16 +14,24 @@ import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
 import java.text.ParseException;
+import java.util.List;
 
 @Slf4j
 @Component
 public class AuthenticationFilter extends AbstractGatewayFilterFactory<AuthenticationFilter.Config> {
 
+    // Identity headers only the gateway may set; client-supplied values are dropped
+    private static final List<String> IDENTITY_HEADERS = List.of(
+            "X-User-Id", "X-User-Roles", "X-User-Scopes", InternalAssertionSigner.HEADER);
+
     private final JwtValidationService jwtValidationService;
+    private final InternalAssertionSigner internalAssertionSigner;
 
-    public AuthenticationFilter(JwtValidationService jwtValidationService) {
+    public AuthenticationFilter(JwtValidationService jwtValidationService,
+                                InternalAssertionSigner internalAssertionSigner) {
         super(Config.class);
         this.jwtValidationService = jwtValidationService;
+        this.internalAssertionSigner = internalAssertionSigner;
     }
 
     @Override
@@ -42,15 +52,18 @@ public class AuthenticationFilter extends AbstractGatewayFilterFactory<Authentic
 
             return jwtValidationService.validateToken(token)
                     .flatMap(claims -> {
-                        // Add claims to request headers for downstream services
+                        // Add claims to request headers for downstream services; the signed internal
+                        // assertion is what they trust, the plain headers are informational
                         ServerHttpRequest modifiedRequest = null;
                         try {
                             modifiedRequest = request.mutate()
+                                    .headers(headers -> IDENTITY_HEADERS.forEach(headers::remove))
                                     .header("X-User-Id", claims.getSubject())
                                     .header("X-User-Roles", String.join(",", claims.getStringListClaim("roles")))
                                     .header("X-User-Scopes", String.join(",", claims.getStringListClaim("scopes")))
+                                    .header(InternalAssertionSigner.HEADER, internalAssertionSigner.sign(claims))
                                     .build();
-                        } catch (ParseException e) {
+                        } catch (ParseException | JOSEException e) {
                             throw new RuntimeException(e);
                         }
 
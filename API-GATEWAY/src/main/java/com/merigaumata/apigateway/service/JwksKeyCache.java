@@ -0,0 +1,191 @@
+package com.merigaumata.apigateway.service;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.crypto.Ed25519Verifier;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.OctetKeyPair;
+import com.nimbusds.jose.jwk.RSAKey;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory cache of JWKS verifiers keyed by kid.
+ * Lookups never block: known kids are answered from the current snapshot, the key set is revalidated
+ * in the background with a conditional GET, and an unknown kid triggers at most one shared fetch.
+ * If the auth service is unreachable the last good keys keep being served.
+ */
+@Slf4j
+@Component
+public class JwksKeyCache {
+
+    private final WebClient webClient;
+    private final String jwksUri;
+    private final Duration refreshInterval;
+    private final Duration minRefetchInterval;
+    private final Duration fetchTimeout;
+
+    private final AtomicReference<KeySnapshot> snapshot = new AtomicReference<>(KeySnapshot.EMPTY);
+    private final AtomicReference<Mono<KeySnapshot>> inFlight = new AtomicReference<>();
+    private Disposable backgroundRefresh;
+
+    public JwksKeyCache(WebClient.Builder webClientBuilder,
+                        @Value("${spring.security.oauth2.resourceserver.jwt.jwk-set-uri}") String jwksUri,
+                        @Value("${jwt.jwks.refresh-interval:60s}") Duration refreshInterval,
+                        @Value("${jwt.jwks.min-refetch-interval:10s}") Duration minRefetchInterval,
+                        @Value("${jwt.jwks.fetch-timeout:3s}") Duration fetchTimeout) {
+        this.webClient = webClientBuilder.build();
+        this.jwksUri = jwksUri;
+        this.refreshInterval = refreshInterval;
+        this.minRefetchInterval = minRefetchInterval;
+        this.fetchTimeout = fetchTimeout;
+    }
+
+    @PostConstruct
+    void start() {
+        backgroundRefresh = Flux.interval(Duration.ZERO, refreshInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> refresh())
+                .subscribe();
+    }
+
+    @PreDestroy
+    void stop() {
+        if (backgroundRefresh != null) {
+            backgroundRefresh.dispose();
+        }
+    }
+
+    /**
+     * Verifier for the given kid, or empty if the auth service does not publish it
+     */
+    public Mono<JWSVerifier> getVerifier(String keyId) {
+        KeySnapshot current = snapshot.get();
+        JWSVerifier verifier = current.verifiers().get(keyId);
+        if (verifier != null) {
+            return Mono.just(verifier);
+        }
+        // Unknown kid: a new key or a forged header; refetch, but rate limited so junk kids cannot hammer the auth service
+        if (current.fetchedAt().plus(minRefetchInterval).isAfter(Instant.now())) {
+            return Mono.empty();
+        }
+        return refresh().flatMap(refreshed -> Mono.justOrEmpty(refreshed.verifiers().get(keyId)));
+    }
+
+    /**
+     * Single-flight refresh: concurrent callers share the fetch that is already running
+     */
+    private Mono<KeySnapshot> refresh() {
+        while (true) {
+            Mono<KeySnapshot> running = inFlight.get();
+            if (running != null) {
+                return running;
+            }
+            Mono<KeySnapshot> fetch = fetch()
+                    .doFinally(signal -> inFlight.set(null))
+                    .cache();
+            if (inFlight.compareAndSet(null, fetch)) {
+                return fetch;
+            }
+        }
+    }
+
+    private Mono<KeySnapshot> fetch() {
+        KeySnapshot current = snapshot.get();
+        return webClient.get()
+                .uri(jwksUri)
+                .headers(headers -> {
+                    if (current.etag() != null) {
+                        headers.setIfNoneMatch(current.etag());
+                    }
+                })
+                .exchangeToMono(response -> {
+                    if (response.statusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+                        return response.releaseBody().then(Mono.fromCallable(current::revalidated));
+                    }
+                    if (response.statusCode().is2xxSuccessful()) {
+                        String etag = response.headers().asHttpHeaders().getETag();
+                        return response.bodyToMono(String.class)
+                                .map(body -> parse(body, etag, current));
+                    }
+                    return response.createError();
+                })
+                .timeout(fetchTimeout)
+                .doOnNext(snapshot::set)
+                .onErrorResume(e -> {
+                    log.warn("JWKS refresh from {} failed, serving {} cached key(s): {}",
+                            jwksUri, current.verifiers().size(), e.getMessage());
+                    KeySnapshot stale = current.revalidated();
+                    snapshot.set(stale);
+                    return Mono.just(stale);
+                });
+    }
+
+    private KeySnapshot parse(String body, String etag, KeySnapshot previous) {
+        JWKSet jwkSet;
+        try {
+            jwkSet = JWKSet.parse(body);
+        } catch (ParseException e) {
+            throw new IllegalStateException("Failed to parse JWKS", e);
+        }
+        Map<String, JWSVerifier> verifiers = new HashMap<>();
+        for (JWK jwk : jwkSet.getKeys()) {
+            if (jwk.getKeyID() == null || KeyUse.ENCRYPTION.equals(jwk.getKeyUse())) {
+                continue;
+            }
+            JWSVerifier existing = previous.verifiers().get(jwk.getKeyID());
+            try {
+                verifiers.put(jwk.getKeyID(), existing != null ? existing : createVerifier(jwk));
+            } catch (JOSEException e) {
+                log.warn("Skipping JWKS key {}: {}", jwk.getKeyID(), e.getMessage());
+            }
+        }
+        if (!verifiers.keySet().equals(previous.verifiers().keySet())) {
+            log.info("JWKS updated, verification keys: {}", verifiers.keySet());
+        }
+        return new KeySnapshot(Map.copyOf(verifiers), etag, Instant.now());
+    }
+
+    // Auth service may sign with RS256, ES256 or EdDSA; the key type in the JWKS decides the verifier
+    private JWSVerifier createVerifier(JWK jwk) throws JOSEException {
+        if (jwk instanceof RSAKey rsaKey) {
+            return new RSASSAVerifier(rsaKey);
+        }
+        if (jwk instanceof ECKey ecKey) {
+            return new ECDSAVerifier(ecKey);
+        }
+        if (jwk instanceof OctetKeyPair octetKeyPair) {
+            return new Ed25519Verifier(octetKeyPair);
+        }
+        throw new JOSEException("Unsupported key type: " + jwk.getKeyType());
+    }
+
+    private record KeySnapshot(Map<String, JWSVerifier> verifiers, String etag, Instant fetchedAt) {
+
+        static final KeySnapshot EMPTY = new KeySnapshot(Map.of(), null, Instant.EPOCH);
+
+        KeySnapshot revalidated() {
+            return new KeySnapshot(verifiers, etag, Instant.now());
+        }
+    }
+}
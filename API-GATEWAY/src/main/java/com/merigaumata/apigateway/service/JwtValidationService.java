@@ -1,49 +1,56 @@
 package com.merigaumata.apigateway.service;
 
+import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.JWSVerifier;
-import com.nimbusds.jose.crypto.RSASSAVerifier;
-import com.nimbusds.jose.jwk.JWK;
-import com.nimbusds.jose.jwk.JWKSet;
-import com.nimbusds.jose.jwk.RSAKey;
 import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.SignedJWT;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
+import java.text.ParseException;
 import java.time.Instant;
 import java.util.Date;
 
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class JwtValidationService {
 
-    private final WebClient webClient;
-    private final String jwksUri;
-
-    public JwtValidationService(WebClient.Builder webClientBuilder,
-                                @Value("${spring.security.oauth2.resourceserver.jwt.jwk-set-uri}") String jwksUri) {
-        this.webClient = webClientBuilder.build();
-        this.jwksUri = jwksUri;
-    }
+    private final JwksKeyCache jwksKeyCache;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final TokenRevocationRegistry tokenRevocationRegistry;
 
     public Mono<JWTClaimsSet> validateToken(String token) {
-        return Mono.fromCallable(() -> {
-            SignedJWT signedJWT = SignedJWT.parse(token);
-            String keyId = signedJWT.getHeader().getKeyID();
+        // Repeat requests with the same token skip parsing and the signature check
+        JWTClaimsSet cached = verifiedTokenCache.get(token);
+        Mono<JWTClaimsSet> verified = cached != null ? Mono.just(cached) : verifySignature(token);
 
-            // Get public key from JWKS
-            JWK jwk = getJWK(keyId).block();
-            if (jwk == null) {
-                throw new RuntimeException("Public key not found for kid: " + keyId);
+        // Revocation is checked on every request, cached or not
+        return verified.map(claims -> {
+            if (tokenRevocationRegistry.isRevoked(claims)) {
+                throw new RuntimeException("Token revoked");
             }
+            return claims;
+        });
+    }
 
-            RSAKey rsaKey = (RSAKey) jwk;
-            JWSVerifier verifier = new RSASSAVerifier(rsaKey);
+    private Mono<JWTClaimsSet> verifySignature(String token) {
+        return Mono.fromCallable(() -> SignedJWT.parse(token))
+                .flatMap(signedJWT -> {
+                    String keyId = signedJWT.getHeader().getKeyID();
 
+                    // Public key from the in-memory JWKS cache; no network I/O for known kids
+                    return jwksKeyCache.getVerifier(keyId)
+                            .switchIfEmpty(Mono.error(() -> new RuntimeException("Public key not found for kid: " + keyId)))
+                            .map(verifier -> verify(signedJWT, verifier));
+                })
+                .doOnNext(claims -> verifiedTokenCache.put(token, claims));
+    }
+
+    private JWTClaimsSet verify(SignedJWT signedJWT, JWSVerifier verifier) {
+        try {
             if (!signedJWT.verify(verifier)) {
                 throw new RuntimeException("Invalid JWT signature");
             }
@@ -57,22 +64,8 @@ public class JwtValidationService {
             }
 
             return claims;
-        });
-    }
-
-    @Cacheable(value = "jwks", key = "#keyId")
-    public Mono<JWK> getJWK(String keyId) {
-        return webClient.get()
-                .uri(jwksUri)
-                .retrieve()
-                .bodyToMono(String.class)
-                .map(response -> {
-                    try {
-                        JWKSet jwkSet = JWKSet.parse(response);
-                        return jwkSet.getKeyByKeyId(keyId);
-                    } catch (Exception e) {
-                        throw new RuntimeException("Failed to parse JWKS", e);
-                    }
-                });
+        } catch (JOSEException | ParseException e) {
+            throw new RuntimeException("Invalid JWT", e);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,160 @@
+package com.merigaumata.apigateway.service;
+
+import com.nimbusds.jwt.JWTClaimsSet;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local copy of the auth service's token blacklist ("blacklist:<jti>" keys in Redis) and of the
+ * per-user token epochs ("token-epoch:<userId>" in epoch seconds, tokens issued before it are revoked).
+ * Revocations arrive over Redis pub/sub and the full set is re-read from a key scan at startup
+ * and periodically, to cover messages missed while disconnected. Checks are a map lookup with
+ * no Redis round trip.
+ */
+@Slf4j
+@Component
+public class TokenRevocationRegistry {
+
+    private static final String BLACKLIST_PREFIX = "blacklist:";
+    private static final String TOKEN_EPOCH_PREFIX = "token-epoch:";
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final ReactiveRedisMessageListenerContainer listenerContainer;
+    private final String channel;
+    private final Duration resyncInterval;
+
+    // jti -> token expiry (epoch seconds); entries are dropped once the token would have expired anyway
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    private final Map<String, TokenEpoch> tokenEpochs = new ConcurrentHashMap<>();
+    private final Disposable.Composite subscriptions = Disposables.composite();
+
+    public TokenRevocationRegistry(ReactiveStringRedisTemplate redisTemplate,
+                                   ReactiveRedisMessageListenerContainer listenerContainer,
+                                   @Value("${jwt.revocation.channel:token-revocations}") String channel,
+                                   @Value("${jwt.revocation.resync-interval:5m}") Duration resyncInterval) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.channel = channel;
+        this.resyncInterval = resyncInterval;
+    }
+
+    @PostConstruct
+    void start() {
+        // Subscribe before the first snapshot so no revocation falls between the two
+        subscriptions.add(listenerContainer.receive(ChannelTopic.of(channel))
+                .doOnNext(message -> apply(message.getMessage()))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30))
+                        .doBeforeRetry(signal -> log.warn("Revocation channel lost, resubscribing: {}",
+                                signal.failure().getMessage())))
+                .subscribe());
+
+        subscriptions.add(Flux.interval(Duration.ZERO, resyncInterval)
+                .onBackpressureDrop()
+                .concatMap(tick -> resync())
+                .subscribe());
+    }
+
+    @PreDestroy
+    void stop() {
+        subscriptions.dispose();
+    }
+
+    public boolean isRevoked(JWTClaimsSet claims) {
+        String jti = claims.getJWTID();
+        if (jti != null && revokedTokens.containsKey(jti)) {
+            return true;
+        }
+        TokenEpoch epoch = claims.getSubject() != null ? tokenEpochs.get(claims.getSubject()) : null;
+        return epoch != null && (claims.getIssueTime() == null
+                || epoch.revokes(claims.getIssueTime().toInstant().getEpochSecond()));
+    }
+
+    /**
+     * Applies one message from the revocation channel
+     */
+    void apply(String message) {
+        String[] parts = message.split(" ");
+        try {
+            if (parts.length == 3 && "jti".equals(parts[0])) {
+                revokedTokens.put(parts[1], Long.parseLong(parts[2]));
+            } else if (parts.length == 4 && "user".equals(parts[0])) {
+                tokenEpochs.merge(parts[1], new TokenEpoch(Long.parseLong(parts[2]), Long.parseLong(parts[3])),
+                        TokenEpoch::latest);
+            } else {
+                log.warn("Ignoring unknown revocation message: {}", message);
+            }
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed revocation message: {}", message);
+        }
+    }
+
+    private Mono<Void> resync() {
+        long now = Instant.now().getEpochSecond();
+        Mono<Void> blacklist = scan(BLACKLIST_PREFIX)
+                .flatMap(key -> redisTemplate.getExpire(key)
+                        .doOnNext(ttl -> revokedTokens.put(key.substring(BLACKLIST_PREFIX.length()),
+                                now + Math.max(ttl.toSeconds(), 0))), 64)
+                .then();
+        Mono<Void> epochs = scan(TOKEN_EPOCH_PREFIX)
+                .flatMap(key -> Mono.zip(redisTemplate.opsForValue().get(key), redisTemplate.getExpire(key))
+                        .doOnNext(valueAndTtl -> tokenEpochs.merge(key.substring(TOKEN_EPOCH_PREFIX.length()),
+                                new TokenEpoch(Long.parseLong(valueAndTtl.getT1()),
+                                        now + Math.max(valueAndTtl.getT2().toSeconds(), 0)),
+                                TokenEpoch::latest)), 64)
+                .then();
+        return Mono.when(blacklist, epochs)
+                .then(Mono.fromRunnable(() -> {
+                    revokedTokens.values().removeIf(expiry -> expiry < now);
+                    tokenEpochs.values().removeIf(epoch -> epoch.expiresAt() < now);
+                }))
+                .doOnSuccess(ignored -> log.debug("Revocation registry resynced: {} revoked token(s), {} user epoch(s)",
+                        revokedTokens.size(), tokenEpochs.size()))
+                .onErrorResume(e -> {
+                    log.warn("Revocation registry resync failed, keeping {} entries: {}",
+                            revokedTokens.size(), e.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private Flux<String> scan(String prefix) {
+        return redisTemplate.scan(ScanOptions.scanOptions().match(prefix + "*").count(1000).build());
+    }
+
+    /**
+     * Tokens of the user issued before notBefore are revoked; dropped at expiresAt, when they have all
+     * expired. Both in epoch seconds.
+     */
+    private record TokenEpoch(long notBefore, long expiresAt) {
+
+        /**
+         * notBefore has the whole-second precision of iat. Tokens issued within the revocation's own
+         * second stay valid, so a login right after the revocation is not rejected; the auth service
+         * applies the same boundary.
+         */
+        boolean revokes(long issuedAtSeconds) {
+            return issuedAtSeconds < notBefore;
+        }
+
+        static TokenEpoch latest(TokenEpoch a, TokenEpoch b) {
+            return a.notBefore() >= b.notBefore() ? a : b;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.merigaumata.apigateway.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.nimbusds.jwt.JWTClaimsSet;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Claims of already verified access tokens, keyed by the SHA-256 digest of the compact token.
+ * A repeat request costs one hash and one lookup instead of a parse and a signature check.
+ * Entries expire at the token's exp (or the configured ttl, whichever comes first). The cache only
+ * stands in for the signature check; revocation has to be decided per request after the lookup.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final boolean enabled;
+    private final long maxTtlNanos;
+    private final Cache<ByteBuffer, JWTClaimsSet> cache;
+    private final ThreadLocal<MessageDigest> digests = ThreadLocal.withInitial(VerifiedTokenCache::newDigest);
+
+    public VerifiedTokenCache(MeterRegistry meterRegistry,
+                              @Value("${jwt.cache.enabled:true}") boolean enabled,
+                              @Value("${jwt.cache.ttl:300}") long ttlSeconds,
+                              @Value("${jwt.cache.maximum-size:100000}") long maximumSize) {
+        this.enabled = enabled;
+        this.maxTtlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwt.verified-claims");
+    }
+
+    public JWTClaimsSet get(String token) {
+        return enabled ? cache.getIfPresent(digest(token)) : null;
+    }
+
+    public void put(String token, JWTClaimsSet claims) {
+        if (enabled && remainingNanos(claims) > 0) {
+            cache.put(digest(token), claims);
+        }
+    }
+
+    private ByteBuffer digest(String token) {
+        return ByteBuffer.wrap(digests.get().digest(token.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    private long remainingNanos(JWTClaimsSet claims) {
+        Date expirationTime = claims.getExpirationTime();
+        if (expirationTime == null) {
+            return 0;
+        }
+        long remaining = TimeUnit.MILLISECONDS.toNanos(expirationTime.getTime() - System.currentTimeMillis());
+        return Math.min(remaining, maxTtlNanos);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private class TokenExpiry implements Expiry<ByteBuffer, JWTClaimsSet> {
+
+        @Override
+        public long expireAfterCreate(ByteBuffer key, JWTClaimsSet claims, long currentTime) {
+            return Math.max(remainingNanos(claims), 0);
+        }
+
+        @Override
+        public long expireAfterUpdate(ByteBuffer key, JWTClaimsSet claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(ByteBuffer key, JWTClaimsSet claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.merigaumata.apigateway.service;
+
+import com.nimbusds.jwt.JWTClaimsSet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.listener.ReactiveRedisMessageListenerContainer;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Boundary of the per-user token epoch: both iat and the epoch have whole seconds.
+ */
+class TokenRevocationRegistryTest {
+
+    // Revocation in the 12:00:00 second; tokens expire an hour later
+    private static final Instant REVOKED_AT = Instant.parse("2026-01-01T12:00:00Z");
+
+    private TokenRevocationRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new TokenRevocationRegistry(mock(ReactiveStringRedisTemplate.class),
+                mock(ReactiveRedisMessageListenerContainer.class), "token-revocations", Duration.ofMinutes(5));
+        registry.apply(epochMessage("alice", REVOKED_AT));
+    }
+
+    @Test
+    void revokesTokenIssuedInThePreviousSecond() {
+        assertThat(registry.isRevoked(token("alice", REVOKED_AT.minusSeconds(1)))).isTrue();
+    }
+
+    @Test
+    void revokesTokenIssuedInEarlierSeconds() {
+        assertThat(registry.isRevoked(token("alice", REVOKED_AT.minusSeconds(60)))).isTrue();
+    }
+
+    @Test
+    void acceptsTokenIssuedInTheRevocationSecond() {
+        // A login right after the revocation carries the same iat second and must stay valid
+        assertThat(registry.isRevoked(token("alice", REVOKED_AT))).isFalse();
+    }
+
+    @Test
+    void acceptsTokenIssuedAfterTheRevocation() {
+        assertThat(registry.isRevoked(token("alice", REVOKED_AT.plusSeconds(1)))).isFalse();
+    }
+
+    @Test
+    void keepsTheLatestEpoch() {
+        // A late message for an older revocation does not lower the epoch
+        registry.apply(epochMessage("alice", REVOKED_AT.minusSeconds(30)));
+
+        assertThat(registry.isRevoked(token("alice", REVOKED_AT.minusSeconds(10)))).isTrue();
+    }
+
+    @Test
+    void ignoresOtherUsers() {
+        assertThat(registry.isRevoked(token("carol", REVOKED_AT.minusSeconds(60)))).isFalse();
+    }
+
+    private static String epochMessage(String userId, Instant notBefore) {
+        return "user " + userId + " " + notBefore.getEpochSecond() + " " + notBefore.plusSeconds(3600).getEpochSecond();
+    }
+
+    private static JWTClaimsSet token(String subject, Instant issuedAt) {
+        // Serialized JWTs carry iat in whole seconds
+        return new JWTClaimsSet.Builder()
+                .subject(subject)
+                .issueTime(Date.from(Instant.ofEpochSecond(issuedAt.getEpochSecond())))
+                .build();
+    }
+}
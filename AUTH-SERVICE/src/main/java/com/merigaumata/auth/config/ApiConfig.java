@@ -1,5 +1,8 @@
 package com.merigaumata.auth.config;
 
+import com.merigaumata.auth.security.ServiceTokenProvider;
+import com.merigaumata.common.client.ServiceClientConfig;
+import com.merigaumata.common.client.ServiceWebClientCustomizer;
 import com.merigaumata.user.ApiClient;
 import com.merigaumata.user.api.UsersApi;
 import jakarta.validation.constraints.NotBlank;
@@ -7,21 +10,36 @@ import jakarta.validation.constraints.NotNull;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.WebClient;
 
 @Configuration
 @Component
+@Import(ServiceClientConfig.class)
 public class ApiConfig {
 
+    private static final String USER_SERVICE_AUDIENCE = "user-service";
+
     @NotBlank
     @NotNull
-//    @Value("${app.service.apis.user-url}")
-    @Value("http://localhost:8082")
+    // Eureka service id, resolved per request by the load balancer
+    @Value("${app.service.apis.user-url:http://user-service}")
     private String userServiceUrl;
 
     @Bean
-    public UsersApi userServiceApi(){
-        ApiClient userApiClient = new ApiClient();
+    public UsersApi userServiceApi(ServiceWebClientCustomizer serviceWebClientCustomizer,
+                                   ServiceTokenProvider serviceTokenProvider){
+        // Every call carries the cached service token; it is resolved per request so renewals are picked up
+        WebClient webClient = ApiClient.buildWebClientBuilder()
+                .apply(serviceWebClientCustomizer)
+                .filter((request, next) -> next.exchange(ClientRequest.from(request)
+                        .headers(headers -> headers.setBearerAuth(
+                                serviceTokenProvider.getServiceToken(USER_SERVICE_AUDIENCE)))
+                        .build()))
+                .build();
+        ApiClient userApiClient = new ApiClient(webClient);
         userApiClient.setBasePath(userServiceUrl);
         return new UsersApi(userApiClient);
     }
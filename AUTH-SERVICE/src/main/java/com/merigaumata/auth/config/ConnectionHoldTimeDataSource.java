@@ -0,0 +1,107 @@
+package com.merigaumata.auth.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DataSource that measures how long each borrowed connection is held, from checkout until it is
+ * returned to the pool, as db.connection.hold tagged with the operation that used it. The operation
+ * is the Spring transaction name (the transactional method), resolved when the connection runs its
+ * first statement, or "none" outside a transaction.
+ * Pool-wide usage is already published by Hikari; this shows which flow holds connections for long.
+ */
+public class ConnectionHoldTimeDataSource extends DelegatingDataSource {
+
+    private static final String NO_OPERATION = "none";
+
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger openConnections = new AtomicInteger();
+
+    public ConnectionHoldTimeDataSource(DataSource targetDataSource, MeterRegistry meterRegistry) {
+        super(targetDataSource);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return track(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return track(super.getConnection(username, password));
+    }
+
+    /**
+     * Connections checked out and not yet closed
+     */
+    public int getOpenConnections() {
+        return openConnections.get();
+    }
+
+    private Connection track(Connection connection) {
+        openConnections.incrementAndGet();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new HoldTimer(connection, System.nanoTime()));
+    }
+
+    private static String currentOperation() {
+        String transactionName = TransactionSynchronizationManager.getCurrentTransactionName();
+        return transactionName != null ? transactionName : NO_OPERATION;
+    }
+
+    private final class HoldTimer implements InvocationHandler {
+
+        private final Connection target;
+        private final long acquiredAt;
+        private String operation;
+        private boolean closed;
+
+        private HoldTimer(Connection target, long acquiredAt) {
+            this.target = target;
+            this.acquiredAt = acquiredAt;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("equals")) {
+                return proxy == args[0];
+            }
+            if (name.equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            }
+            if (operation == null && (name.startsWith("prepare") || name.equals("createStatement"))) {
+                // Transactions that acquire the connection on begin are named only afterwards
+                operation = currentOperation();
+            }
+            if (name.equals("close") && !closed) {
+                closed = true;
+                openConnections.decrementAndGet();
+                Timer.builder("db.connection.hold")
+                        .description("Time a pooled connection was held, from checkout to close")
+                        .tag("operation", operation != null ? operation : currentOperation())
+                        .publishPercentileHistogram()
+                        .register(meterRegistry)
+                        .record(System.nanoTime() - acquiredAt, TimeUnit.NANOSECONDS);
+            }
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+}
@@ -1,45 +0,0 @@
-package com.merigaumata.auth.config;
-
-import com.nimbusds.jose.JWSAlgorithm;
-import com.nimbusds.jose.jwk.JWK;
-import com.nimbusds.jose.jwk.JWKSet;
-import com.nimbusds.jose.jwk.KeyUse;
-import com.nimbusds.jose.jwk.RSAKey;
-import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
-
-import java.security.KeyPair;
-import java.security.KeyPairGenerator;
-import java.security.interfaces.RSAPublicKey;
-
-@Slf4j
-@Configuration
-public class JwtConfig {
-
-    @Value("${jwt.key-id:main-key}")
-    private String keyId;
-
-    @Bean
-    public KeyPair keyPair() throws Exception {
-        // In production, load from Vault/KMS/Kubernetes Secret
-        // For now, generate RSA 2048-bit key pair
-        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
-        keyPairGenerator.initialize(2048);
-        return keyPairGenerator.generateKeyPair();
-    }
-
-    @Bean
-    public JWKSet jwkSet(KeyPair keyPair) {
-        RSAPublicKey publicKey = (RSAPublicKey) keyPair.getPublic();
-
-        JWK jwk = new RSAKey.Builder(publicKey)
-                .keyUse(KeyUse.SIGNATURE)
-                .algorithm(JWSAlgorithm.RS256)
-                .keyID(keyId)
-                .build();
-
-        return new JWKSet(jwk);
-    }
-}
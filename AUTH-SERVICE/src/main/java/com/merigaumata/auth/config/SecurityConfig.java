@@ -1,9 +1,14 @@
 package com.merigaumata.auth.config;
 
+import com.merigaumata.auth.security.BoundedPasswordEncoder;
 import com.merigaumata.auth.security.LoginAttemptService;
+import com.merigaumata.auth.security.PasswordHashingExecutor;
+import com.merigaumata.common.security.Argon2Calibrator;
+import com.merigaumata.common.security.BreachedPasswordIndex;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -13,19 +18,28 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 
+import java.util.Map;
+
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity
+@Import({Argon2Calibrator.class, BreachedPasswordIndex.class})
 @RequiredArgsConstructor
 public class SecurityConfig {
 
+    private static final String ARGON2 = "argon2";
+
     private final UserDetailsService userDetailsService;
+    private final UserDetailsPasswordService userDetailsPasswordService;
     private final LoginAttemptService loginAttemptService;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final Argon2Calibrator argon2Calibrator;
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
@@ -35,6 +49,9 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/auth/login", "/auth/register", "/auth/.well-known/**",
                                 "/actuator/health/**", "/actuator/prometheus").permitAll()
+                        // Service-to-service calls; InternalController checks the service JWT (or, for the
+                        // token exchange, the shared service secret)
+                        .requestMatchers("/auth/internal/**").permitAll()
                         .anyRequest().authenticated()
                 );
 
@@ -42,9 +59,14 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        // Argon2 with secure parameters (16MB memory, 2 iterations, 1 parallelism)
-        return Argon2PasswordEncoder.defaultsForSpringSecurity_v5_8();
+    public BoundedPasswordEncoder passwordEncoder() {
+        // Argon2 with calibrated parameters (never below 16MB memory, 2 iterations, 1 parallelism).
+        // Unprefixed hashes predate calibration; they and weaker parameter sets are upgraded on login.
+        DelegatingPasswordEncoder argon2 = new DelegatingPasswordEncoder(ARGON2,
+                Map.of(ARGON2, argon2Calibrator.encoder()));
+        argon2.setDefaultPasswordEncoderForMatches(Argon2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+        // Hashed on the bounded hashing pool rather than on request threads
+        return new BoundedPasswordEncoder(argon2, passwordHashingExecutor);
         // Alternative: BCrypt - return new BCryptPasswordEncoder(12);
     }
 
@@ -53,6 +75,7 @@ public class SecurityConfig {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
         authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setUserDetailsPasswordService(userDetailsPasswordService);
         return authProvider;
     }
 
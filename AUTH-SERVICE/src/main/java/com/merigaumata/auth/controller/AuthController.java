@@ -5,15 +5,23 @@ import com.merigaumata.auth.model.*;
 import com.merigaumata.auth.security.LoginAttemptService;
 import com.merigaumata.auth.service.AuthService;
 import com.merigaumata.auth.service.RefreshTokenService;
-import com.merigaumata.user.model.UserResponse;
+import com.merigaumata.auth.service.TokenIntrospectionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
-import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
+/**
+ * Authentication endpoints, completed asynchronously: each handler assembles a pipeline over the
+ * non-blocking services and returns its future, so no servlet thread waits on UserService, Redis
+ * or password hashing.
+ */
 @Slf4j
 @RestController
 @RequiredArgsConstructor
@@ -22,53 +30,94 @@ public class AuthController implements AuthenticationApi {
     private final AuthService authService;
     private final RefreshTokenService refreshTokenService;
     private final LoginAttemptService loginAttemptService;
+    private final TokenIntrospectionService tokenIntrospectionService;
 
     @Override
-    public ResponseEntity<TokenIntrospectionResponse> introspect(TokenIntrospectionRequest tokenIntrospectionRequest) {
-        TokenIntrospectionResponse response = authService.introspectToken(tokenIntrospectionRequest.getToken());
-        return ResponseEntity.ok(response);
+    public CompletableFuture<ResponseEntity<TokenIntrospectionResponse>> introspect(
+            TokenIntrospectionRequest tokenIntrospectionRequest) {
+        // Verdict cache misses read the revocation state from Redis
+        return Mono.fromCallable(() -> tokenIntrospectionService.introspect(tokenIntrospectionRequest.getToken()))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(ResponseEntity::ok)
+                .toFuture();
     }
 
     @Override
-    public ResponseEntity<LoginResponse> login(LoginRequest loginRequest, String xForwardedFor) {
-        String clientIp = xForwardedFor != null ? xForwardedFor : "unknown";
+    public CompletableFuture<ResponseEntity<BatchTokenIntrospectionResponse>> introspectBatch(
+            BatchTokenIntrospectionRequest batchTokenIntrospectionRequest) {
+        return Mono.fromCallable(() -> tokenIntrospectionService.introspect(batchTokenIntrospectionRequest.getTokens()))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(results -> ResponseEntity.ok(new BatchTokenIntrospectionResponse(results)))
+                .toFuture();
+    }
+
+    @Override
+    public CompletableFuture<ResponseEntity<LoginResponse>> login(LoginRequest loginRequest, String xForwardedFor) {
+        String clientIp = clientIp(xForwardedFor);
         String username = loginRequest.getUsername();
-        LoginResponse response = authService.authenticate(loginRequest);
-        loginAttemptService.loginSucceeded(username);
-        log.info("Successful login for user: {} from IP: {}", username, clientIp);
-        return ResponseEntity.ok(response);
+        // Locked principals are rejected before any password hashing
+        return loginAttemptService.checkAllowed(username, clientIp)
+                .then(Mono.defer(() -> authService.authenticate(loginRequest)))
+                .onErrorResume(BadCredentialsException.class, e -> {
+                    log.warn("Failed login attempt for user: {} from IP: {}", username, clientIp);
+                    return loginAttemptService.loginFailed(username, clientIp).then(Mono.error(e));
+                })
+                .flatMap(response -> loginAttemptService.loginSucceeded(username).thenReturn(response))
+                .map(response -> {
+                    log.info("Successful login for user: {} from IP: {}", username, clientIp);
+                    return ResponseEntity.ok(response);
+                })
+                .toFuture();
+    }
+
+    private static String clientIp(String xForwardedFor) {
+        if (xForwardedFor == null || xForwardedFor.isBlank()) {
+            return "unknown";
+        }
+        // Only the last entry is trustworthy: the gateway appends the peer address it saw, every
+        // entry before it came from the caller and can be spoofed to dodge or aim the IP throttle
+        int comma = xForwardedFor.lastIndexOf(',');
+        return xForwardedFor.substring(comma + 1).trim();
     }
 
     @Override
-    public ResponseEntity<MessageResponse> logout(String authorization, LogoutRequest logoutRequest) {
+    public CompletableFuture<ResponseEntity<MessageResponse>> logout(String authorization, LogoutRequest logoutRequest) {
         String accessToken = authorization.substring(7); // Remove "Bearer "
-        authService.logout(accessToken, logoutRequest.getRefreshToken());
-        log.info("User logged out successfully");
-        return ResponseEntity.ok().body(new MessageResponse("Logged out successfully"));
+        return authService.logout(accessToken, logoutRequest.getRefreshToken())
+                .then(Mono.fromSupplier(() -> {
+                    log.info("User logged out successfully");
+                    return ResponseEntity.ok().body(new MessageResponse("Logged out successfully"));
+                }))
+                .toFuture();
     }
 
 
     @Override
-    public ResponseEntity<LoginResponse> refresh(RefreshRequest refreshRequest) {
-        LoginResponse response = refreshTokenService.refreshAccessToken(refreshRequest.getRefreshToken());
-        log.info("Token refreshed successfully");
-        return ResponseEntity.ok(response);
+    public CompletableFuture<ResponseEntity<LoginResponse>> refresh(RefreshRequest refreshRequest) {
+        return refreshTokenService.refreshAccessToken(refreshRequest.getRefreshToken())
+                .map(response -> {
+                    log.info("Token refreshed successfully");
+                    return ResponseEntity.ok(response);
+                })
+                .toFuture();
     }
 
     @Override
-    public ResponseEntity<MessageResponse> register(RegisterRequest registerRequest) {
-        UserResponse userResponse = authService.register(registerRequest);
-        if (Objects.nonNull(userResponse)) {
-            log.info("New user registered: {}", userResponse.getUsername());
-            return ResponseEntity.status(HttpStatus.CREATED)
-                    .body(new MessageResponse("User registered successfully"));
-        }
-        log.info("User registration Failed: {}", registerRequest.getUsername());
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                .body(new MessageResponse("User registration Failed"));
+    public CompletableFuture<ResponseEntity<MessageResponse>> register(RegisterRequest registerRequest) {
+        return authService.register(registerRequest)
+                .map(userResponse -> {
+                    log.info("New user registered: {}", userResponse.getUsername());
+                    return ResponseEntity.status(HttpStatus.CREATED)
+                            .body(new MessageResponse("User registered successfully"));
+                })
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    log.info("User registration Failed: {}", registerRequest.getUsername());
+                    return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                            .body(new MessageResponse("User registration Failed"));
+                }))
+                .toFuture();
     }
 
-
 //
 //    @PostMapping("/login")
 //    public ResponseEntity<?> login(@Valid @RequestBody LoginRequest request,
@@ -0,0 +1,85 @@
+package com.merigaumata.auth.controller;
+
+import com.merigaumata.auth.api.InternalApi;
+import com.merigaumata.auth.exception.UnauthorizedException;
+import com.merigaumata.auth.model.ServiceTokenResponse;
+import com.merigaumata.auth.security.JwtTokenProvider;
+import com.merigaumata.auth.security.ServiceTokenVerifier;
+import com.merigaumata.auth.service.AuthService;
+import com.merigaumata.auth.service.UserAuthInfoCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+public class InternalController implements InternalApi {
+
+    // The shared service secret is held by the user service only
+    private static final String CALLER_SERVICE = "user-service";
+
+    private final UserAuthInfoCache userAuthInfoCache;
+    private final AuthService authService;
+    private final JwtTokenProvider jwtTokenProvider;
+    private final ServiceTokenVerifier serviceTokenVerifier;
+
+    @Value("${service.secret}")
+    private String serviceSecret;
+
+    @Override
+    public CompletableFuture<ResponseEntity<ServiceTokenResponse>> issueServiceToken(String xServiceToken) {
+        verifyServiceSecret(xServiceToken);
+        String accessToken = jwtTokenProvider.generateAccessToken(
+                CALLER_SERVICE,
+                List.of(ServiceTokenVerifier.SERVICE_ROLE),
+                List.of("service:internal"),
+                ServiceTokenVerifier.AUDIENCE);
+        log.debug("Issued service token to {}", CALLER_SERVICE);
+        return CompletableFuture.completedFuture(ResponseEntity.ok(new ServiceTokenResponse()
+                .accessToken(accessToken)
+                .tokenType("Bearer")
+                .expiresIn(jwtTokenProvider.getAccessTokenValidity())));
+    }
+
+    @Override
+    public CompletableFuture<ResponseEntity<Void>> evictUserAuthInfo(String username, String authorization) {
+        serviceTokenVerifier.verify(authorization);
+        userAuthInfoCache.evict(username);
+        log.debug("Evicted cached auth info for user: {}", username);
+        return CompletableFuture.completedFuture(ResponseEntity.noContent().build());
+    }
+
+    @Override
+    public CompletableFuture<ResponseEntity<Void>> revokeUserSessions(String username, Long changedAt,
+                                                                      String authorization) {
+        serviceTokenVerifier.verify(authorization);
+        long changedAtSeconds = changedAt != null ? changedAt : Instant.now().getEpochSecond();
+        // Refresh-token store and token epoch writes block
+        return Mono.fromRunnable(() -> authService.revokeAllSessions(username, changedAtSeconds))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then(Mono.fromSupplier(() -> {
+                    log.info("Revoked all sessions of user: {}", username);
+                    return ResponseEntity.noContent().<Void>build();
+                }))
+                .toFuture();
+    }
+
+    private void verifyServiceSecret(String xServiceToken) {
+        if (!StringUtils.hasText(xServiceToken) || !MessageDigest.isEqual(
+                serviceSecret.getBytes(StandardCharsets.UTF_8), xServiceToken.getBytes(StandardCharsets.UTF_8))) {
+            throw new UnauthorizedException("Invalid service credentials");
+        }
+    }
+}
@@ -1,26 +1,39 @@
 package com.merigaumata.auth.controller;
 
 import com.merigaumata.auth.api.DiscoveryApi;
-import com.nimbusds.jose.jwk.JWKSet;
+import com.merigaumata.auth.security.JwksDocument;
+import com.merigaumata.auth.security.SigningKeyring;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.Map;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequiredArgsConstructor
 public class JwksController implements DiscoveryApi {
 
-    private final JWKSet jwkSet;
+    private final SigningKeyring signingKeyring;
 
+    // Keep below jwt.keyring.publish-ahead so verifiers see new keys before they sign
+    @Value("${jwt.keyring.jwks-max-age:5m}")
+    private Duration maxAge;
+
+    /**
+     * Serves the precomputed JWKS bytes. Spring MVC answers 304 itself when
+     * If-None-Match matches the ETag on the returned entity.
+     */
     @Override
-    public ResponseEntity<Map<String, Object>> getJwks() {
-        return ResponseEntity.ok(jwkSet.toJSONObject());
+    public CompletableFuture<ResponseEntity<Resource>> getJwks() {
+        JwksDocument document = signingKeyring.getJwksDocument();
+        return CompletableFuture.completedFuture(ResponseEntity.ok()
+                .eTag(document.etag())
+                .cacheControl(CacheControl.maxAge(maxAge).cachePublic())
+                .body(new ByteArrayResource(document.body())));
     }
-
-//    @GetMapping(value = "/jwks.json", produces = MediaType.APPLICATION_JSON_VALUE)
-//    public Map<String, Object> getJwks() {
-//        return jwkSet.toJSONObject();
-//    }
-}
\ No newline at end of file
+}
@@ -10,8 +10,10 @@ import java.time.Instant;
 @Entity
 @Table(name = "refresh_tokens", indexes = {
         @Index(name = "idx_user_id", columnList = "user_id"),
+        @Index(name = "idx_token_hash", columnList = "token_hash", unique = true),
         @Index(name = "idx_revoked", columnList = "revoked"),
-        @Index(name = "idx_expiry", columnList = "expiry_date")
+        @Index(name = "idx_expiry", columnList = "expiry_date"),
+        @Index(name = "idx_revoked_at", columnList = "revoked_at")
 })
 @Data
 @NoArgsConstructor
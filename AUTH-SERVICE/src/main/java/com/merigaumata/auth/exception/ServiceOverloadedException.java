@@ -0,0 +1,19 @@
+package com.merigaumata.auth.exception;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+@Getter
+public class ServiceOverloadedException extends BusinessException {
+    private final int retryAfterSeconds;
+
+    public ServiceOverloadedException(String message, int retryAfterSeconds) {
+        super(
+                message,
+                HttpStatus.SERVICE_UNAVAILABLE,
+                "SERVICE_OVERLOADED",
+                java.util.Map.of("retryAfter", retryAfterSeconds)
+        );
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
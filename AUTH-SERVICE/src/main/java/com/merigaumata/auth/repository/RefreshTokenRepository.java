@@ -2,6 +2,9 @@ package com.merigaumata.auth.repository;
 
 import com.merigaumata.auth.entity.RefreshToken;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
@@ -13,9 +16,35 @@ public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Stri
 
     List<RefreshToken> findByUserIdAndRevokedFalse(String userId);
 
-    List<RefreshToken> findByRevokedFalse();
+    @Modifying
+    @Query("UPDATE RefreshToken t SET t.revoked = true, t.revokedAt = :revokedAt WHERE t.userId = :userId AND t.revoked = false")
+    int revokeAllByUserId(@Param("userId") String userId, @Param("revokedAt") Instant revokedAt);
 
-    void deleteByExpiryDateBefore(Instant date);
+    List<RefreshToken> findByRevokedFalseAndTokenHashStartingWith(String hashPrefix);
+
+    /**
+     * One-time-use rotation in a single statement: revokes the presented token only if it is still
+     * active, and inserts its successor only if that revocation happened. Returns 1 if this call won
+     * the rotation, 0 if the token was already rotated, revoked or expired.
+     */
+    @Modifying
+    @Query(value = """
+            WITH rotated AS (
+                UPDATE refresh_tokens SET revoked = true, revoked_at = :now
+                WHERE id = :id AND revoked = false AND expiry_date > :now
+                RETURNING user_id
+            )
+            INSERT INTO refresh_tokens (id, user_id, token_hash, expiry_date, created_at, revoked)
+            SELECT :newId, user_id, :newTokenHash, :newExpiryDate, :now, false FROM rotated""", nativeQuery = true)
+    int rotate(@Param("id") String id,
+               @Param("newId") String newId,
+               @Param("newTokenHash") String newTokenHash,
+               @Param("newExpiryDate") Instant newExpiryDate,
+               @Param("now") Instant now);
+
+    @Modifying
+    @Query("UPDATE RefreshToken t SET t.revoked = true, t.revokedAt = :revokedAt WHERE t.tokenHash = :tokenHash AND t.revoked = false")
+    int revokeByTokenHash(@Param("tokenHash") String tokenHash, @Param("revokedAt") Instant revokedAt);
 
     Optional<RefreshToken> findByTokenHashAndRevokedFalse(String tokenHash);
 }
@@ -0,0 +1,40 @@
+package com.merigaumata.auth.security;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import reactor.core.publisher.Mono;
+
+/**
+ * Password encoder that runs the delegate's hashing on the {@link PasswordHashingExecutor}
+ * instead of the calling request thread. The async variants complete once the pool has hashed,
+ * without blocking the caller at all.
+ */
+@RequiredArgsConstructor
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final PasswordHashingExecutor hashingExecutor;
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return hashingExecutor.encode(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return hashingExecutor.matches(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    public Mono<String> encodeAsync(CharSequence rawPassword) {
+        return hashingExecutor.encodeAsync(() -> delegate.encode(rawPassword));
+    }
+
+    public Mono<Boolean> matchesAsync(CharSequence rawPassword, String encodedPassword) {
+        return hashingExecutor.matchesAsync(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
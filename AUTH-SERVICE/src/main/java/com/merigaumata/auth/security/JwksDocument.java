@@ -0,0 +1,25 @@
+package com.merigaumata.auth.security;
+
+import com.nimbusds.jose.jwk.JWKSet;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Serialized JWKS as served to verifiers, built once per keyring change.
+ * The ETag is a SHA-256 of the body, so every replica publishing the same keys sends the same validator.
+ */
+public record JwksDocument(byte[] body, String etag) {
+
+    public static JwksDocument of(JWKSet publicKeys) {
+        byte[] body = publicKeys.toString(true).getBytes(StandardCharsets.UTF_8);
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return new JwksDocument(body, "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest) + "\"");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -1,20 +1,15 @@
 package com.merigaumata.auth.security;
 
-import com.nimbusds.jose.JWSAlgorithm;
-import com.nimbusds.jose.JWSHeader;
-import com.nimbusds.jose.JWSSigner;
-import com.nimbusds.jose.crypto.RSASSASigner;
 import com.nimbusds.jwt.JWTClaimsSet;
-import com.nimbusds.jwt.SignedJWT;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.security.KeyPair;
-import java.security.interfaces.RSAPrivateKey;
+import java.security.SecureRandom;
 import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
 import java.util.List;
 import java.util.UUID;
@@ -25,7 +20,9 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class JwtTokenProvider {
 
-    private final KeyPair keyPair;
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
+    private final TokenSigner tokenSigner;
 
     @Value("${jwt.access-token-validity:900}") // 15 minutes
     private long accessTokenValidity;
@@ -36,9 +33,6 @@ public class JwtTokenProvider {
     @Value("${jwt.issuer:auth-service}")
     private String issuer;
 
-    @Value("${jwt.key-id:main-key}")
-    private String keyId;
-
     public String generateAccessToken(String userId, List<String> roles, List<String> scopes, String audience) {
         try {
             Instant now = Instant.now();
@@ -56,16 +50,7 @@ public class JwtTokenProvider {
                     .claim("token_type", "access")
                     .build();
 
-            SignedJWT signedJWT = new SignedJWT(
-                    new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(keyId).build(),
-                    claimsSet
-            );
-
-            RSAPrivateKey privateKey = (RSAPrivateKey) keyPair.getPrivate();
-            JWSSigner signer = new RSASSASigner(privateKey);
-            signedJWT.sign(signer);
-
-            return signedJWT.serialize();
+            return tokenSigner.sign(claimsSet);
         } catch (Exception e) {
             log.error("Error generating access token", e);
             throw new RuntimeException("Failed to generate access token", e);
@@ -73,7 +58,9 @@ public class JwtTokenProvider {
     }
 
     public String generateRefreshToken(String userId) {
-        return UUID.randomUUID().toString().replace("-", "") +
-                UUID.randomUUID().toString().replace("-", "");
+        // 256 bits of entropy, base64url encoded (43 chars)
+        byte[] tokenBytes = new byte[32];
+        SECURE_RANDOM.nextBytes(tokenBytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(tokenBytes);
     }
 }
@@ -1,70 +1,184 @@
 package com.merigaumata.auth.security;
 
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.merigaumata.auth.exception.RateLimitExceededException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.security.authentication.LockedException;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
 
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
 
+/**
+ * Login throttling shared by all replicas.
+ * Failed logins are counted in Redis sliding windows per username and per client IP, updated
+ * atomically by a Lua script. Principals known to be locked are remembered in a short-lived local
+ * near-cache, so a credential-stuffing burst is rejected without Redis or password hashing.
+ * Redis is called through the reactive template; every check and update is a publisher for the
+ * login pipeline to compose, and no thread waits on a round trip.
+ */
 @Slf4j
 @Service
 public class LoginAttemptService {
 
+    private static final String USER_KEY_PREFIX = "login-failures:user:";
+    private static final String IP_KEY_PREFIX = "login-failures:ip:";
+    private static final String UNKNOWN_IP = "unknown";
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final RedisScript<List> throttleScript;
+    // Near-cache key (username or IP key) -> locked until (epoch ms)
+    private final Cache<String, Long> lockedUntil;
+
     @Value("${security.max-login-attempts:5}")
     private int maxAttempts;
 
+    @Value("${security.max-login-attempts-per-ip:50}")
+    private int maxAttemptsPerIp;
+
     @Value("${security.lockout-duration:900}") // 15 minutes
     private int lockoutDuration;
 
-    private final LoadingCache<String, Integer> attemptsCache;
+    public LoginAttemptService(ReactiveStringRedisTemplate redisTemplate,
+                               @Value("${security.lock-cache-ttl:30s}") Duration lockCacheTtl) {
+        this.redisTemplate = redisTemplate;
+        DefaultRedisScript<List> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource("scripts/login_throttle.lua")));
+        script.setResultType(List.class);
+        this.throttleScript = script;
+        this.lockedUntil = Caffeine.newBuilder()
+                .expireAfterWrite(lockCacheTtl)
+                .maximumSize(100_000)
+                .build();
+    }
 
-    public LoginAttemptService() {
-        attemptsCache = CacheBuilder.newBuilder()
-                .expireAfterWrite(15, TimeUnit.MINUTES)
-                .build(new CacheLoader<String, Integer>() {
-                    @Override
-                    public Integer load(String key) {
-                        return 0;
-                    }
-                });
+    /**
+     * Rejects the attempt before any password hashing if the username or client IP is locked.
+     * Errors with {@link LockedException} for a locked account and {@link RateLimitExceededException}
+     * for a throttled client IP.
+     */
+    public Mono<Void> checkAllowed(String username, String clientIp) {
+        return Mono.defer(() -> {
+            long now = System.currentTimeMillis();
+            // Near-cache hit: reject without a Redis round trip
+            rejectIfLocked(userKey(username), clientIp, now, localLock(userKey(username), now));
+            if (isKnownIp(clientIp)) {
+                rejectIfLocked(ipKey(clientIp), clientIp, now, localLock(ipKey(clientIp), now));
+            }
+
+            return evaluate(username, clientIp, "", now)
+                    .doOnNext(result -> {
+                        cacheLocks(username, clientIp, result, now);
+                        rejectIfLocked(userKey(username), clientIp, now, now + result.get(1));
+                        if (result.size() > 2) {
+                            rejectIfLocked(ipKey(clientIp), clientIp, now, now + result.get(3));
+                        }
+                    })
+                    .then();
+        });
     }
 
-    public void loginSucceeded(String key) {
-        attemptsCache.invalidate(key);
+    public Mono<Void> loginSucceeded(String username) {
+        return Mono.defer(() -> {
+            lockedUntil.invalidate(userKey(username));
+            return redisTemplate.delete(userKey(username))
+                    .doOnError(e -> log.warn("Failed to reset login failures for {}: {}", username, e.getMessage()))
+                    .onErrorComplete()
+                    .then();
+        });
     }
 
-    public void loginFailed(String key) {
-        int attempts = 0;
-        try {
-            attempts = attemptsCache.get(key);
-        } catch (ExecutionException e) {
-            attempts = 0;
-        }
-        attempts++;
-        attemptsCache.put(key, attempts);
+    public Mono<Void> loginFailed(String username, String clientIp) {
+        return Mono.defer(() -> {
+            long now = System.currentTimeMillis();
+            return evaluate(username, clientIp, now + ":" + UUID.randomUUID(), now)
+                    .doOnNext(result -> {
+                        if (result.get(1) > 0) {
+                            log.warn("Account locked due to too many failed attempts: {}", username);
+                        }
+                        if (result.size() > 2 && result.get(3) > 0) {
+                            log.warn("Client IP throttled due to too many failed attempts: {}", clientIp);
+                        }
+                        // Record the lock locally; the next attempt is rejected without a Redis round trip
+                        cacheLocks(username, clientIp, result, now);
+                    })
+                    .then();
+        });
+    }
+
+    /**
+     * Runs the throttle script; empty when Redis is unavailable
+     */
+    @SuppressWarnings("unchecked")
+    private Mono<List<Long>> evaluate(String username, String clientIp, String member, long now) {
+        List<String> keys = new ArrayList<>(2);
+        List<String> args = new ArrayList<>(5);
+        args.add(Long.toString(now));
+        args.add(Long.toString(lockoutDuration * 1000L));
+        args.add(member);
 
-        if (attempts >= maxAttempts) {
-            log.warn("Account locked due to too many failed attempts: {}", key);
+        keys.add(userKey(username));
+        args.add(Integer.toString(maxAttempts));
+        if (isKnownIp(clientIp)) {
+            keys.add(ipKey(clientIp));
+            args.add(Integer.toString(maxAttemptsPerIp));
         }
+
+        return redisTemplate.execute(throttleScript, keys, args)
+                .next()
+                .map(result -> (List<Long>) result)
+                .onErrorResume(e -> {
+                    // Fail open: throttling must not take login down with Redis
+                    log.warn("Login throttle unavailable, allowing attempt for {}: {}", username, e.getMessage());
+                    return Mono.empty();
+                });
     }
 
-    public boolean isBlocked(String key) {
-        try {
-            return attemptsCache.get(key) >= maxAttempts;
-        } catch (ExecutionException e) {
-            return false;
+    private void cacheLocks(String username, String clientIp, List<Long> result, long now) {
+        if (result.get(1) > 0) {
+            lockedUntil.put(userKey(username), now + result.get(1));
         }
+        if (result.size() > 2 && result.get(3) > 0) {
+            lockedUntil.put(ipKey(clientIp), now + result.get(3));
+        }
+    }
+
+    private long localLock(String key, long now) {
+        Long until = lockedUntil.getIfPresent(key);
+        return until != null && until > now ? until : 0;
     }
 
-    public int getAttemptsRemaining(String key) {
-        try {
-            return Math.max(0, maxAttempts - attemptsCache.get(key));
-        } catch (ExecutionException e) {
-            return maxAttempts;
+    private static void rejectIfLocked(String key, String clientIp, long now, long until) {
+        if (until <= now) {
+            return;
         }
+        if (key.startsWith(IP_KEY_PREFIX)) {
+            int retryAfterSeconds = (int) Math.max(1, (until - now + 999) / 1000);
+            throw new RateLimitExceededException("Too many failed login attempts from " + clientIp, retryAfterSeconds);
+        }
+        throw new LockedException("Account temporarily locked due to too many failed attempts");
+    }
+
+    private static boolean isKnownIp(String clientIp) {
+        // Requests without a client IP must not share one throttling bucket
+        return clientIp != null && !clientIp.isBlank() && !UNKNOWN_IP.equals(clientIp);
+    }
+
+    private static String userKey(String username) {
+        return USER_KEY_PREFIX + username;
+    }
+
+    private static String ipKey(String clientIp) {
+        return IP_KEY_PREFIX + clientIp;
     }
 }
@@ -0,0 +1,179 @@
+package com.merigaumata.auth.security;
+
+import com.merigaumata.auth.exception.ServiceOverloadedException;
+import com.merigaumata.common.security.Argon2Calibrator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Dedicated, bounded pool for password hashing.
+ * Each Argon2 hash holds a core and its memory cost for its whole duration, so hashing runs on a
+ * fixed number of threads sized to both instead of on request threads. Callers queue for a thread;
+ * a full queue, or a task that waited longer than the queue-wait budget, fails fast with 503 so a
+ * login spike sheds load instead of starving every other endpoint.
+ * The async variants hand back the pending hash without parking the caller's thread.
+ */
+@Slf4j
+@Component
+public class PasswordHashingExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final Duration maxQueueWait;
+    private final int retryAfterSeconds;
+
+    private final Timer queueWait;
+    private final Timer encodeDuration;
+    private final Timer matchDuration;
+    private final Counter rejectedQueueFull;
+    private final Counter rejectedWaitBudget;
+
+    public PasswordHashingExecutor(MeterRegistry meterRegistry,
+                                   Argon2Calibrator argon2Calibrator,
+                                   @Value("${security.password-hashing.threads:0}") int threads,
+                                   @Value("${security.password-hashing.memory-per-hash:0B}") DataSize memoryPerHash,
+                                   @Value("${security.password-hashing.memory-budget:0B}") DataSize memoryBudget,
+                                   @Value("${security.password-hashing.queue-capacity:64}") int queueCapacity,
+                                   @Value("${security.password-hashing.max-queue-wait:500ms}") Duration maxQueueWait,
+                                   @Value("${security.password-hashing.retry-after:2s}") Duration retryAfter) {
+        if (memoryPerHash.toBytes() <= 0) {
+            memoryPerHash = DataSize.ofKilobytes(argon2Calibrator.getProfile().memoryKib());
+        }
+        int poolSize = threads > 0 ? threads : defaultPoolSize(memoryPerHash, memoryBudget);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                task -> {
+                    Thread thread = new Thread(task, "password-hashing-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.maxQueueWait = maxQueueWait;
+        this.retryAfterSeconds = (int) Math.max(1, retryAfter.toSeconds());
+
+        Gauge.builder("password.hashing.queue.depth", executor, pool -> pool.getQueue().size())
+                .description("Password hashing tasks waiting for a thread")
+                .register(meterRegistry);
+        Gauge.builder("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Password hashing tasks running")
+                .register(meterRegistry);
+        this.queueWait = Timer.builder("password.hashing.queue.wait")
+                .description("Time a password hashing task waited for a thread")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.encodeDuration = hashDuration(meterRegistry, "encode");
+        this.matchDuration = hashDuration(meterRegistry, "matches");
+        this.rejectedQueueFull = rejected(meterRegistry, "queue_full");
+        this.rejectedWaitBudget = rejected(meterRegistry, "wait_budget");
+        log.info("Password hashing pool: {} thread(s), queue capacity {}, max queue wait {}",
+                poolSize, queueCapacity, maxQueueWait);
+    }
+
+    public String encode(Supplier<String> hash) {
+        return execute(hash, encodeDuration);
+    }
+
+    public boolean matches(Supplier<Boolean> hash) {
+        return execute(hash, matchDuration);
+    }
+
+    public Mono<String> encodeAsync(Supplier<String> hash) {
+        return submitAsync(hash, encodeDuration);
+    }
+
+    public Mono<Boolean> matchesAsync(Supplier<Boolean> hash) {
+        return submitAsync(hash, matchDuration);
+    }
+
+    private <T> T execute(Supplier<T> hash, Timer duration) {
+        CompletableFuture<T> future = submit(hash, duration);
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw overloaded();
+        }
+    }
+
+    private <T> Mono<T> submitAsync(Supplier<T> hash, Timer duration) {
+        // Downstream work continues on the parallel scheduler, the hashing threads only hash
+        return Mono.defer(() -> Mono.fromFuture(submit(hash, duration)))
+                .publishOn(Schedulers.parallel());
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> hash, Timer duration) {
+        long enqueuedAt = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                long waited = System.nanoTime() - enqueuedAt;
+                queueWait.record(waited, TimeUnit.NANOSECONDS);
+                if (waited > maxQueueWait.toNanos()) {
+                    // The caller has waited too long already; don't spend a hash on it
+                    rejectedWaitBudget.increment();
+                    throw overloaded();
+                }
+                return duration.record(hash);
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            rejectedQueueFull.increment();
+            throw overloaded();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private ServiceOverloadedException overloaded() {
+        return new ServiceOverloadedException("Authentication is temporarily overloaded", retryAfterSeconds);
+    }
+
+    private static int defaultPoolSize(DataSize memoryPerHash, DataSize memoryBudget) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        // Without an explicit budget, let hashing use at most a quarter of the heap
+        long budget = memoryBudget.toBytes() > 0 ? memoryBudget.toBytes() : Runtime.getRuntime().maxMemory() / 4;
+        long byMemory = Math.max(1, budget / Math.max(1, memoryPerHash.toBytes()));
+        return (int) Math.min(cores, byMemory);
+    }
+
+    private static Timer hashDuration(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("password.hashing.duration")
+                .description("Time spent computing a password hash")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private static Counter rejected(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("password.hashing.rejected")
+                .description("Password hashing requests shed under load")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
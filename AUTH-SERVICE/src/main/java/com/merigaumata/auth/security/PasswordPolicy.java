@@ -1,10 +1,13 @@
 package com.merigaumata.auth.security;
 
+import com.merigaumata.common.security.BreachedPasswordIndex;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
 import java.util.regex.Pattern;
 
 @Component
+@RequiredArgsConstructor
 public class PasswordPolicy {
 
     private static final int MIN_LENGTH = 12;
@@ -13,6 +16,8 @@ public class PasswordPolicy {
     private static final Pattern DIGIT_PATTERN = Pattern.compile("[0-9]");
     private static final Pattern SPECIAL_CHAR_PATTERN = Pattern.compile("[!@#$%^&*()_+\\-=\\[\\]{};':\"\\\\|,.<>/?]");
 
+    private final BreachedPasswordIndex breachedPasswordIndex;
+
     public ValidationResult validate(String password) {
         if (password == null || password.length() < MIN_LENGTH) {
             return ValidationResult.failure("Password must be at least " + MIN_LENGTH + " characters long");
@@ -34,6 +39,10 @@ public class PasswordPolicy {
             return ValidationResult.failure("Password must contain at least one special character");
         }
 
+        if (breachedPasswordIndex.isBreached(password)) {
+            return ValidationResult.failure("Password has appeared in a known data breach, choose a different one");
+        }
+
         return ValidationResult.success();
     }
 
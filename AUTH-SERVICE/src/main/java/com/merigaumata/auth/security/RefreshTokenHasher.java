@@ -0,0 +1,68 @@
+package com.merigaumata.auth.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * Keyed hash (HMAC-SHA256) for refresh tokens.
+ * Refresh tokens are 256-bit random values, so a keyed fast hash is enough to protect them at rest
+ * and, unlike a salted password hash, it is deterministic and can be looked up through an index.
+ */
+@Component
+public class RefreshTokenHasher {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final String LEGACY_HASH_PREFIX = "$argon2";
+    private static final Pattern LEGACY_TOKEN_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> macs;
+
+    public RefreshTokenHasher(@Value("${jwt.refresh-token.hash-secret}") String secret) {
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+
+    public String hash(String token) {
+        byte[] digest = macs.get().doFinal(token.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest);
+    }
+
+    public boolean matches(String token, String storedHash) {
+        return MessageDigest.isEqual(
+                hash(token).getBytes(StandardCharsets.US_ASCII),
+                storedHash.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Prefix of rows written before keyed hashing, when tokens were stored as Argon2 hashes
+     */
+    public String getLegacyHashPrefix() {
+        return LEGACY_HASH_PREFIX;
+    }
+
+    /**
+     * Legacy tokens were two dash-less UUIDs (64 hex chars); new tokens are base64url and never match
+     */
+    public boolean isLegacyToken(String token) {
+        return LEGACY_TOKEN_PATTERN.matcher(token).matches();
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to initialise refresh token hasher", e);
+        }
+    }
+}
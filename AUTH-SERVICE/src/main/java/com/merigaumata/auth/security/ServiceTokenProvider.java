@@ -1,26 +1,130 @@
 package com.merigaumata.auth.security;
 
-import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Internal service-to-service JWTs, one per target service (audience).
+ * A service token is the same for its whole validity, so it is minted once and handed out from a
+ * map without locking or signing. It is renewed in the background before it expires, at a jittered
+ * point of its lifetime so replicas don't all re-sign at once; callers only sign synchronously on the
+ * first request for an audience, or if renewal has failed until the token expired.
+ */
+@Slf4j
 @Component
-@RequiredArgsConstructor
 public class ServiceTokenProvider {
 
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(5);
+
     private final JwtTokenProvider jwtTokenProvider;
+    private final Map<String, ServiceToken> tokens = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService renewer = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "service-token-renewer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Renew after this fraction of the validity has elapsed, +/- jitter
+    @Value("${jwt.service-token.renew-at:0.75}")
+    private double renewAt;
+
+    @Value("${jwt.service-token.renew-jitter:0.1}")
+    private double renewJitter;
+
+    public ServiceTokenProvider(JwtTokenProvider jwtTokenProvider) {
+        this.jwtTokenProvider = jwtTokenProvider;
+    }
+
+    /**
+     * Current service token for the target service
+     */
+    public String getServiceToken(String targetService) {
+        ServiceToken token = tokens.get(targetService);
+        if (token == null || token.isExpired()) {
+            token = tokens.compute(targetService, (audience, current) -> {
+                if (current != null && !current.isExpired()) {
+                    return current;
+                }
+                ServiceToken minted = mint(audience);
+                if (current == null) {
+                    // First use of this audience starts its renewal cycle; on expiry a retry is already pending
+                    scheduleRenewal(audience, minted.renewIn());
+                }
+                return minted;
+            });
+        }
+        return token.value();
+    }
+
+    @PostConstruct
+    void validateRenewal() {
+        // Every renewal must land strictly inside the validity window
+        if (renewJitter < 0 || renewAt - renewJitter <= 0 || renewAt + renewJitter >= 1) {
+            throw new IllegalArgumentException("jwt.service-token.renew-at " + renewAt + " +/- renew-jitter "
+                    + renewJitter + " must stay within (0, 1)");
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        renewer.shutdownNow();
+    }
 
     /**
      * Generate internal service-to-service JWT token
      * These tokens have ROLE_SERVICE and longer TTL
      */
-    public String generateServiceToken(String targetService) {
-        return jwtTokenProvider.generateAccessToken(
+    private ServiceToken mint(String targetService) {
+        Instant issuedAt = Instant.now();
+        String value = jwtTokenProvider.generateAccessToken(
                 "auth-service", // Service identifier
                 List.of("ROLE_SERVICE"), // Service role
                 List.of("service:internal", "user:create", "user:read"), // Service scopes
                 targetService // Target service as audience
         );
+        Duration validity = Duration.ofSeconds(jwtTokenProvider.getAccessTokenValidity());
+        double fraction = renewJitter > 0
+                ? renewAt + ThreadLocalRandom.current().nextDouble(-renewJitter, renewJitter)
+                : renewAt;
+        log.debug("Minted service token for {}", targetService);
+        return new ServiceToken(value, issuedAt.plus(validity),
+                Duration.ofMillis((long) (validity.toMillis() * fraction)));
+    }
+
+    private void scheduleRenewal(String targetService, Duration delay) {
+        renewer.schedule(() -> renew(targetService), delay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void renew(String targetService) {
+        try {
+            ServiceToken token = mint(targetService);
+            tokens.put(targetService, token);
+            scheduleRenewal(targetService, token.renewIn());
+        } catch (Exception e) {
+            // The current token stays in use while it is valid
+            log.warn("Service token renewal for {} failed, retrying in {}: {}",
+                    targetService, RETRY_DELAY, e.getMessage());
+            scheduleRenewal(targetService, RETRY_DELAY);
+        }
+    }
+
+    private record ServiceToken(String value, Instant expiresAt, Duration renewIn) {
+
+        boolean isExpired() {
+            return !expiresAt.isAfter(Instant.now());
+        }
     }
-}
\ No newline at end of file
+}
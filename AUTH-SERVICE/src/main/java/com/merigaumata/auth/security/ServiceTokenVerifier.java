@@ -0,0 +1,62 @@
+package com.merigaumata.auth.security;
+
+import com.merigaumata.auth.exception.ForbiddenException;
+import com.merigaumata.auth.exception.UnauthorizedException;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.text.ParseException;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Authenticates calls to the internal endpoints. The caller must present a Bearer service JWT that
+ * this service's keyring signed. The token must be unexpired, addressed to this service and carry
+ * ROLE_SERVICE.
+ */
+@Component
+@RequiredArgsConstructor
+public class ServiceTokenVerifier {
+
+    public static final String AUDIENCE = "auth-service";
+    public static final String SERVICE_ROLE = "ROLE_SERVICE";
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final TokenVerifier tokenVerifier;
+
+    public JWTClaimsSet verify(String authorization) {
+        // Missing credentials are a 401, not a failed string comparison
+        if (!StringUtils.hasText(authorization) || !authorization.startsWith(BEARER_PREFIX)) {
+            throw new UnauthorizedException("Missing service token");
+        }
+        JWTClaimsSet claims;
+        List<String> roles;
+        try {
+            SignedJWT signedJWT = SignedJWT.parse(authorization.substring(BEARER_PREFIX.length()).trim());
+            if (!tokenVerifier.verify(signedJWT)) {
+                throw new UnauthorizedException("Invalid service token");
+            }
+            claims = signedJWT.getJWTClaimsSet();
+            roles = claims.getStringListClaim("roles");
+        } catch (ParseException e) {
+            throw new UnauthorizedException("Invalid service token");
+        }
+
+        Date expiration = claims.getExpirationTime();
+        if (expiration == null || !expiration.toInstant().isAfter(Instant.now())) {
+            throw new UnauthorizedException("Service token expired");
+        }
+        if (claims.getAudience() == null || !claims.getAudience().contains(AUDIENCE)) {
+            throw new UnauthorizedException("Service token is not addressed to " + AUDIENCE);
+        }
+        if (roles == null || !roles.contains(SERVICE_ROLE)) {
+            throw new ForbiddenException("Not a service token");
+        }
+        return claims;
+    }
+}
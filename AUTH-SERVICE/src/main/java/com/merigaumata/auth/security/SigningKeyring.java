@@ -0,0 +1,252 @@
+package com.merigaumata.auth.security;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.JWKGenerator;
+import com.nimbusds.jose.jwk.gen.OctetKeyPairGenerator;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * File-backed keyring of JWT signing keys.
+ * Keys are stored as a private JWK Set on local disk, so restarts and replicas sharing the file
+ * sign with the same keys. Every key has its own kid (JWK thumbprint) and carries its lifecycle in
+ * the standard JWK members: "nbf" is when it starts signing, "exp" is when it leaves the JWKS.
+ * A rotated-in key is published ahead of its "nbf" so verifiers already know it when the first
+ * token signed with it arrives; the key it replaces stays published until its tokens have expired.
+ */
+@Slf4j
+@Component
+public class SigningKeyring {
+
+    @Value("${jwt.keyring.path:./keys/auth-keyring.json}")
+    private Path path;
+
+    // RS256, ES256 or EdDSA (Ed25519); applies to keys generated from now on
+    @Value("${jwt.signing.algorithm:ES256}")
+    private String signingAlgorithm;
+
+    // Disable when the keyring file is provisioned read-only (e.g. mounted secret)
+    @Value("${jwt.keyring.rotation-enabled:true}")
+    private boolean rotationEnabled;
+
+    @Value("${jwt.keyring.rotation-interval:7d}")
+    private Duration rotationInterval;
+
+    // Must exceed how long verifiers cache the JWKS
+    @Value("${jwt.keyring.publish-ahead:15m}")
+    private Duration publishAhead;
+
+    // Must exceed the longest token validity signed with a retiring key
+    @Value("${jwt.keyring.retention:1h}")
+    private Duration retention;
+
+    private volatile Snapshot snapshot;
+    private volatile FileTime loadedModifiedTime;
+
+    @PostConstruct
+    void initialize() throws IOException, ParseException, JOSEException {
+        withFileLock(() -> {
+            if (Files.notExists(path)) {
+                // First start: nothing has been signed yet, so the key is active immediately
+                JWK firstKey = generateKey(Instant.now());
+                write(new JWKSet(firstKey));
+                log.info("Created signing keyring {} with key {}", path, firstKey.getKeyID());
+            }
+        });
+        reload(Instant.now());
+    }
+
+    /**
+     * Private key that new tokens are signed with
+     */
+    public JWK getActiveKey() {
+        return snapshot.activeKey();
+    }
+
+    /**
+     * Every verification key: the active key, keys about to be activated and retiring keys
+     */
+    public JWKSet getPublicKeys() {
+        return snapshot.publicKeys();
+    }
+
+    /**
+     * Public keys serialized for the JWKS endpoint
+     */
+    public JwksDocument getJwksDocument() {
+        return snapshot.jwksDocument();
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.keyring.check-interval:PT1M}",
+            initialDelayString = "${jwt.keyring.check-interval:PT1M}")
+    public void refresh() {
+        try {
+            Instant now = Instant.now();
+            if (rotationEnabled && isRotationDue(snapshot.keys(), now)) {
+                rotate(now);
+            }
+            if (!Objects.equals(loadedModifiedTime, Files.getLastModifiedTime(path))) {
+                // Another replica rotated the shared keyring
+                reload(now);
+            } else {
+                select(snapshot.keys(), now);
+            }
+        } catch (Exception e) {
+            log.error("Signing keyring refresh failed, keeping current keys", e);
+        }
+    }
+
+    private void rotate(Instant now) throws IOException, ParseException, JOSEException {
+        withFileLock(() -> {
+            // Re-check under the lock: another replica may have rotated already
+            JWKSet current = JWKSet.load(path.toFile());
+            if (!isRotationDue(current, now)) {
+                return;
+            }
+            Instant activation = now.plus(publishAhead);
+            List<JWK> keys = new ArrayList<>();
+            for (JWK key : current.getKeys()) {
+                if (isExpired(key, now)) {
+                    continue;
+                }
+                keys.add(key.getExpirationTime() == null
+                        ? withExpiration(key, activation.plus(retention))
+                        : key);
+            }
+            JWK newKey = generateKey(activation);
+            keys.add(newKey);
+            write(new JWKSet(keys));
+            log.info("Rotated signing keyring: key {} signs from {}", newKey.getKeyID(), activation);
+        });
+    }
+
+    private void reload(Instant now) throws IOException, ParseException {
+        FileTime modifiedTime = Files.getLastModifiedTime(path);
+        JWKSet keys = JWKSet.load(path.toFile());
+        loadedModifiedTime = modifiedTime;
+        select(keys, now);
+    }
+
+    private void select(JWKSet keys, Instant now) {
+        List<JWK> live = keys.getKeys().stream()
+                .filter(key -> !isExpired(key, now))
+                .toList();
+        JWK activeKey = live.stream()
+                .filter(JWK::isPrivate)
+                .filter(key -> key.getNotBeforeTime() == null || !key.getNotBeforeTime().toInstant().isAfter(now))
+                .max(Comparator.comparing(SigningKeyring::activationTime))
+                .orElseThrow(() -> new IllegalStateException("No active signing key in keyring " + path));
+        List<JWK> publicKeys = live.stream().map(JWK::toPublicJWK).toList();
+
+        Snapshot current = snapshot;
+        if (current != null
+                && current.activeKey().getKeyID().equals(activeKey.getKeyID())
+                && current.publicKeys().getKeys().equals(publicKeys)) {
+            return;
+        }
+        JWKSet publicKeySet = new JWKSet(publicKeys);
+        snapshot = new Snapshot(keys, activeKey, publicKeySet, JwksDocument.of(publicKeySet));
+        log.info("Signing with key {}, publishing {} verification key(s)", activeKey.getKeyID(), publicKeys.size());
+    }
+
+    private boolean isRotationDue(JWKSet keys, Instant now) {
+        return keys.getKeys().stream()
+                .map(SigningKeyring::activationTime)
+                .max(Comparator.naturalOrder())
+                .map(newest -> !newest.plus(rotationInterval).isAfter(now))
+                .orElse(true);
+    }
+
+    private JWK generateKey(Instant activation) throws JOSEException {
+        JWSAlgorithm algorithm = JWSAlgorithm.parse(signingAlgorithm);
+        return keyGenerator(algorithm)
+                .keyUse(KeyUse.SIGNATURE)
+                .algorithm(algorithm)
+                .keyIDFromThumbprint(true)
+                .issueTime(new Date())
+                .notBeforeTime(Date.from(activation))
+                .generate();
+    }
+
+    private JWKGenerator<? extends JWK> keyGenerator(JWSAlgorithm algorithm) {
+        if (JWSAlgorithm.RS256.equals(algorithm)) {
+            return new RSAKeyGenerator(RSAKeyGenerator.MIN_KEY_SIZE_BITS);
+        }
+        if (JWSAlgorithm.ES256.equals(algorithm)) {
+            return new ECKeyGenerator(Curve.P_256);
+        }
+        if (JWSAlgorithm.EdDSA.equals(algorithm)) {
+            return new OctetKeyPairGenerator(Curve.Ed25519);
+        }
+        throw new IllegalArgumentException("Unsupported jwt.signing.algorithm: " + signingAlgorithm);
+    }
+
+    private void write(JWKSet keys) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        // Temp files are created owner-read/write only; the atomic move keeps readers from seeing a partial file
+        Path tempFile = Files.createTempFile(directory, ".keyring", ".tmp");
+        Files.writeString(tempFile, keys.toString(false));
+        Files.move(tempFile, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private synchronized void withFileLock(KeyringUpdate update) throws IOException, ParseException, JOSEException {
+        Path lockFile = path.resolveSibling(path.getFileName() + ".lock");
+        Files.createDirectories(lockFile.toAbsolutePath().getParent());
+        try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileLock ignored = channel.lock()) {
+            update.run();
+        }
+    }
+
+    private static boolean isExpired(JWK key, Instant now) {
+        return key.getExpirationTime() != null && !key.getExpirationTime().toInstant().isAfter(now);
+    }
+
+    private static Instant activationTime(JWK key) {
+        Date activation = key.getNotBeforeTime() != null ? key.getNotBeforeTime() : key.getIssueTime();
+        return activation != null ? activation.toInstant() : Instant.EPOCH;
+    }
+
+    private static JWK withExpiration(JWK key, Instant expiration) throws ParseException {
+        Map<String, Object> json = key.toJSONObject();
+        json.put("exp", expiration.getEpochSecond());
+        return JWK.parse(json);
+    }
+
+    private record Snapshot(JWKSet keys, JWK activeKey, JWKSet publicKeys, JwksDocument jwksDocument) {
+    }
+
+    @FunctionalInterface
+    private interface KeyringUpdate {
+        void run() throws IOException, ParseException, JOSEException;
+    }
+}
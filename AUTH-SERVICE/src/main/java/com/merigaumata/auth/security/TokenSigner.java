@@ -0,0 +1,75 @@
+package com.merigaumata.auth.security;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.Ed25519Signer;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.OctetKeyPair;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Signing engine for issued JWTs.
+ * Signs with the keyring's active key; the signer and header for a key are built once and shared
+ * across threads, the Nimbus signers are stateless and safe for concurrent use.
+ * Supports RS256 (RSA), ES256 (EC P-256) and EdDSA (Ed25519) keys.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TokenSigner {
+
+    private final SigningKeyring signingKeyring;
+    private final Map<String, PreparedSigner> signers = new ConcurrentHashMap<>();
+
+    public String sign(JWTClaimsSet claimsSet) throws JOSEException {
+        PreparedSigner prepared = prepare(signingKeyring.getActiveKey());
+        SignedJWT signedJWT = new SignedJWT(prepared.header(), claimsSet);
+        signedJWT.sign(prepared.signer());
+        return signedJWT.serialize();
+    }
+
+    private PreparedSigner prepare(JWK signingKey) throws JOSEException {
+        PreparedSigner prepared = signers.get(signingKey.getKeyID());
+        if (prepared != null) {
+            return prepared;
+        }
+        JWSAlgorithm algorithm = JWSAlgorithm.parse(signingKey.getAlgorithm().getName());
+        prepared = new PreparedSigner(
+                new JWSHeader.Builder(algorithm).keyID(signingKey.getKeyID()).build(),
+                createSigner(signingKey));
+        // Only one key signs at a time; drop signers of rotated-out keys
+        signers.clear();
+        signers.put(signingKey.getKeyID(), prepared);
+        log.info("Token signer switched to algorithm {} and key id {}", algorithm, signingKey.getKeyID());
+        return prepared;
+    }
+
+    private static JWSSigner createSigner(JWK signingKey) throws JOSEException {
+        if (signingKey instanceof RSAKey rsaKey) {
+            return new RSASSASigner(rsaKey);
+        }
+        if (signingKey instanceof ECKey ecKey) {
+            return new ECDSASigner(ecKey);
+        }
+        if (signingKey instanceof OctetKeyPair octetKeyPair) {
+            return new Ed25519Signer(octetKeyPair);
+        }
+        throw new JOSEException("Unsupported signing key type: " + signingKey.getKeyType());
+    }
+
+    private record PreparedSigner(JWSHeader header, JWSSigner signer) {
+    }
+}
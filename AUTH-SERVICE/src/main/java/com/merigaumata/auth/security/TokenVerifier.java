@@ -0,0 +1,70 @@
+package com.merigaumata.auth.security;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.crypto.Ed25519Verifier;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.OctetKeyPair;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jwt.SignedJWT;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Verifies signatures of tokens issued by this service against the local keyring.
+ * Verifiers are built once per kid; a kid that has left the keyring no longer verifies.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TokenVerifier {
+
+    private final SigningKeyring signingKeyring;
+    private final Map<String, JWSVerifier> verifiers = new ConcurrentHashMap<>();
+
+    public boolean verify(SignedJWT signedJWT) {
+        String keyId = signedJWT.getHeader().getKeyID();
+        if (keyId == null) {
+            return false;
+        }
+        JWKSet publicKeys = signingKeyring.getPublicKeys();
+        JWK key = publicKeys.getKeyByKeyId(keyId);
+        if (key == null) {
+            return false;
+        }
+        try {
+            JWSVerifier verifier = verifiers.get(keyId);
+            if (verifier == null) {
+                verifier = createVerifier(key);
+                // Drop verifiers of keys that have been retired from the keyring
+                verifiers.keySet().removeIf(kid -> publicKeys.getKeyByKeyId(kid) == null);
+                verifiers.put(keyId, verifier);
+            }
+            return signedJWT.verify(verifier);
+        } catch (JOSEException e) {
+            log.debug("Token signature check failed for kid {}: {}", keyId, e.getMessage());
+            return false;
+        }
+    }
+
+    private static JWSVerifier createVerifier(JWK key) throws JOSEException {
+        if (key instanceof RSAKey rsaKey) {
+            return new RSASSAVerifier(rsaKey);
+        }
+        if (key instanceof ECKey ecKey) {
+            return new ECDSAVerifier(ecKey);
+        }
+        if (key instanceof OctetKeyPair octetKeyPair) {
+            return new Ed25519Verifier(octetKeyPair);
+        }
+        throw new JOSEException("Unsupported key type: " + key.getKeyType());
+    }
+}
@@ -5,24 +5,21 @@ import com.merigaumata.auth.mapper.AuthMapper;
 import com.merigaumata.auth.model.LoginRequest;
 import com.merigaumata.auth.model.LoginResponse;
 import com.merigaumata.auth.model.RegisterRequest;
-import com.merigaumata.auth.model.TokenIntrospectionResponse;
+import com.merigaumata.auth.security.BoundedPasswordEncoder;
 import com.merigaumata.auth.security.JwtTokenProvider;
 import com.merigaumata.auth.security.PasswordPolicy;
 import com.merigaumata.user.api.UsersApi;
 import com.merigaumata.user.model.UserResponse;
-import com.nimbusds.jwt.JWTClaimsSet;
-import com.nimbusds.jwt.SignedJWT;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.util.List;
 import java.util.Map;
@@ -32,24 +29,65 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class AuthService {
 
-    private final AuthenticationManager authenticationManager;
+    private static final String USER_NOT_FOUND_PASSWORD = "userNotFoundPassword";
+
+    private final CustomUserDetailsService userDetailsService;
     private final JwtTokenProvider jwtTokenProvider;
     private final RefreshTokenService refreshTokenService;
     private final TokenBlacklistService tokenBlacklistService;
-    private final PasswordEncoder passwordEncoder;
+    private final BoundedPasswordEncoder passwordEncoder;
     private final PasswordPolicy passwordPolicy;
+    private final UserAuthInfoCache userAuthInfoCache;
 
     private final UsersApi usersApi;
     private final AuthMapper authMapper;
 
-    @Transactional
-    public LoginResponse authenticate(LoginRequest request) {
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword())
-        );
+    // Unknown usernames are still checked against a hash, so response time doesn't reveal them
+    private volatile String userNotFoundHash;
+
+    /**
+     * Non-blocking login: the user lookup and the rehash upload are WebClient calls, the password
+     * check runs on the bounded hashing pool, and only the refresh-token write is offloaded to a
+     * blocking-capable scheduler. Same checks and errors as the DaoAuthenticationProvider.
+     */
+    public Mono<LoginResponse> authenticate(LoginRequest request) {
+        return userDetailsService.findByUsername(request.getUsername())
+                .switchIfEmpty(Mono.defer(() -> userNotFoundHash()
+                        .flatMap(hash -> passwordEncoder.matchesAsync(request.getPassword(), hash))
+                        .then(Mono.error(new BadCredentialsException("Bad credentials")))))
+                .flatMap(user -> verifyPassword(user, request.getPassword()))
+                .flatMap(this::issueTokens);
+    }
+
+    private Mono<UserDetails> verifyPassword(UserDetails user, String password) {
+        if (!user.isEnabled()) {
+            return Mono.error(new DisabledException("User is disabled"));
+        }
+        return passwordEncoder.matchesAsync(password, user.getPassword())
+                .flatMap(matches -> {
+                    if (!matches) {
+                        return Mono.error(new BadCredentialsException("Bad credentials"));
+                    }
+                    if (!passwordEncoder.upgradeEncoding(user.getPassword())) {
+                        return Mono.just(user);
+                    }
+                    return passwordEncoder.encodeAsync(password)
+                            .flatMap(newHash -> userDetailsService.upgradePassword(user, newHash));
+                });
+    }
 
-        String userId = authentication.getName();
-        List<String> roles = authentication.getAuthorities().stream()
+    private Mono<String> userNotFoundHash() {
+        String hash = userNotFoundHash;
+        if (hash != null) {
+            return Mono.just(hash);
+        }
+        return passwordEncoder.encodeAsync(USER_NOT_FOUND_PASSWORD)
+                .doOnNext(encoded -> userNotFoundHash = encoded);
+    }
+
+    private Mono<LoginResponse> issueTokens(UserDetails user) {
+        String userId = user.getUsername();
+        List<String> roles = user.getAuthorities().stream()
                 .map(GrantedAuthority::getAuthority)
                 .toList();
 
@@ -59,63 +97,58 @@ public class AuthService {
         String refreshToken = jwtTokenProvider.generateRefreshToken(userId);
 
         // Store refresh token
-        refreshTokenService.createRefreshToken(userId, refreshToken);
-
-        return LoginResponse.builder().accessToken(accessToken).refreshToken(refreshToken)
-                .expiresIn(jwtTokenProvider.getAccessTokenValidity())
-                .userId(userId)
-                .roles(roles)
-                .scopes(scopes)
-                .build();
+        return Mono.fromRunnable(() -> refreshTokenService.createRefreshToken(userId, refreshToken))
+                .subscribeOn(Schedulers.boundedElastic())
+                .thenReturn(LoginResponse.builder().accessToken(accessToken).refreshToken(refreshToken)
+                        .expiresIn(jwtTokenProvider.getAccessTokenValidity())
+                        .userId(userId)
+                        .roles(roles)
+                        .scopes(scopes)
+                        .build());
     }
 
-    @Transactional
-    public UserResponse register(RegisterRequest request) {
+    public Mono<UserResponse> register(RegisterRequest request) {
         // Validate password policy
         PasswordPolicy.ValidationResult validationResult = passwordPolicy.validate(request.getPassword());
         if (!validationResult.isValid()) {
-            throw new RuntimeException(validationResult.getMessage());
+            return Mono.error(new RuntimeException(validationResult.getMessage()));
         }
         // Call UserService to create user
-        request.setPassword(passwordEncoder.encode(request.getPassword()));
-        return usersApi.createUser(authMapper.maptoCreateUserRequest(request)).block();
-
+        return passwordEncoder.encodeAsync(request.getPassword())
+                .flatMap(hash -> {
+                    request.setPassword(hash);
+                    return usersApi.createUser(authMapper.maptoCreateUserRequest(request));
+                })
+                // Drop a cached "not found" from login attempts before registration
+                .doOnSuccess(userResponse -> userAuthInfoCache.evict(request.getUsername()));
     }
 
-    @Transactional
-    public void logout(String accessToken, String refreshToken) {
-        // Blacklist access token
-        tokenBlacklistService.blacklistToken(accessToken);
-        // Revoke refresh token
-        refreshTokenService.revokeRefreshToken(refreshToken);
+    public Mono<Void> logout(String accessToken, String refreshToken) {
+        return Mono.fromRunnable(() -> {
+                    // Blacklist access token
+                    tokenBlacklistService.blacklistToken(accessToken);
+                    // Revoke refresh token
+                    refreshTokenService.revokeRefreshToken(refreshToken);
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .then();
     }
 
-    public TokenIntrospectionResponse introspectToken(String token) {
-        try {
-            SignedJWT signedJWT = SignedJWT.parse(token);
-            JWTClaimsSet claims = signedJWT.getJWTClaimsSet();
-
-            // Check if token is blacklisted
-            if (tokenBlacklistService.isBlacklisted(token)) {
-                return new TokenIntrospectionResponse(false, null, null, null, null, null);
-            }
-
-            // Check expiration
-            if (claims.getExpirationTime().before(new java.util.Date())) {
-                return new TokenIntrospectionResponse(false, null, null, null, null, null);
-            }
-
-            return TokenIntrospectionResponse.builder()
-                    .active(true)
-                    .subject(claims.getSubject())
-                    .issuer(claims.getIssuer())
-                    .expiration(claims.getExpirationTime().getTime() / 1000)
-                    .roles(claims.getStringListClaim("roles"))
-                    .scopes(claims.getStringListClaim("scopes"))
-                    .build();
-        } catch (Exception e) {
-            log.error("Token introspection failed", e);
-            return new TokenIntrospectionResponse(false, null, null, null, null, null);
+    /**
+     * Ends every session of the user: refresh tokens are revoked and all access tokens issued
+     * so far are rejected through the user's token epoch. Called by UserService on password change
+     * or account removal. No surrounding transaction: the store revokes in its own, the epoch is a Redis write.
+     * changedAt (epoch seconds) identifies the change: a retried call for a change that an earlier call
+     * has already applied only evicts, so it cannot end sessions started after the first call.
+     */
+    public void revokeAllSessions(String userId, long changedAt) {
+        if (tokenBlacklistService.isRevokedAfter(userId, changedAt)) {
+            log.info("Sessions of user {} already revoked since the change at {}", userId, changedAt);
+            userAuthInfoCache.evict(userId);
+            return;
         }
+        refreshTokenService.revokeAllUserTokens(userId);
+        tokenBlacklistService.revokeAllUserTokens(userId);
+        userAuthInfoCache.evict(userId);
     }
-}
\ No newline at end of file
+}
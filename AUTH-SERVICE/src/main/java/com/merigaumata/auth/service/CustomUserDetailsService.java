@@ -1,55 +1,87 @@
 package com.merigaumata.auth.service;
 
 import com.merigaumata.user.api.UsersApi;
-import com.merigaumata.user.model.UserResponse;
+import com.merigaumata.user.model.UpdatePasswordHashRequest;
+import com.merigaumata.user.model.UserAuthInfo;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.util.ObjectUtils;
-import org.springframework.util.StringUtils;
-import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
-import java.util.Map;
-import java.util.Objects;
-import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, ReactiveUserDetailsService,
+        UserDetailsPasswordService {
 
     private final UsersApi usersApi;
+    private final UserAuthInfoCache userAuthInfoCache;
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        // Call UserService to get user details
+        return findByUsername(username).blockOptional()
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+    }
+
+    /**
+     * Non-blocking lookup for the login pipeline; empty for an unknown username
+     */
+    @Override
+    public Mono<UserDetails> findByUsername(String username) {
+        // Served from the short-lived cache; a miss calls UserService
+        return userAuthInfoCache.find(username)
+                .flatMap(Mono::justOrEmpty)
+                .map(authInfo -> toUserDetails(username, authInfo));
+    }
 
-        UserResponse userResponse = usersApi.getUserByUsername(username).block();
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        return upgradePassword(user, newPassword).block();
+    }
 
-            if (Objects.nonNull(userResponse)) {
-                throw new UsernameNotFoundException("User not found: " + username);
-            }
+    /**
+     * Called after a successful login whose stored hash used weaker Argon2 parameters; stores the
+     * rehash in UserService. A failed upgrade never fails the login, it is retried on the next one.
+     */
+    public Mono<UserDetails> upgradePassword(UserDetails user, String newPassword) {
+        return usersApi.updatePasswordHash(user.getUsername(), new UpdatePasswordHashRequest()
+                        .currentHash(user.getPassword())
+                        .newHash(newPassword))
+                .doOnSuccess(ignored -> log.info("Upgraded password hash parameters for user: {}", user.getUsername()))
+                .thenReturn(User.withUserDetails(user).password(newPassword).build())
+                .onErrorResume(e -> {
+                    log.warn("Password hash upgrade failed for user: {}: {}", user.getUsername(), e.getMessage());
+                    return Mono.just(user);
+                })
+                .doFinally(signal -> userAuthInfoCache.evict(user.getUsername()));
+    }
 
-//            String password = userResponse.getPassword();
-            List<String> roles = ObjectUtils.isEmpty(userResponse.getRoles()) ? List.of("ROLE_USER") : userResponse.getRoles();
+    private static UserDetails toUserDetails(String username, UserAuthInfo authInfo) {
+        List<String> roles = ObjectUtils.isEmpty(authInfo.getRoles()) ? List.of("ROLE_USER") : authInfo.getRoles();
 
-        boolean enabled = !ObjectUtils.isEmpty(userResponse.getEnabled()) ? userResponse.getEnabled() : true;
+        boolean enabled = !ObjectUtils.isEmpty(authInfo.getEnabled()) ? authInfo.getEnabled() : true;
         List<SimpleGrantedAuthority> authorities = roles.stream()
-                    .map(SimpleGrantedAuthority::new)
-                    .toList();
-
-            return User.builder()
-                    .username(username)
-//                    .password(password)
-                    .authorities(authorities)
-                    .accountExpired(false)
-                    .accountLocked(false)
-                    .credentialsExpired(false)
-                    .disabled(!enabled)
-                    .build();
+                .map(SimpleGrantedAuthority::new)
+                .toList();
+
+        return User.builder()
+                .username(username)
+                .password(authInfo.getPassword())
+                .authorities(authorities)
+                .accountExpired(false)
+                .accountLocked(false)
+                .credentialsExpired(false)
+                .disabled(!enabled)
+                .build();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,82 @@
+package com.merigaumata.auth.service;
+
+import com.merigaumata.auth.entity.RefreshToken;
+import com.merigaumata.auth.repository.RefreshTokenRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "jwt.refresh-token.store", havingValue = "jpa", matchIfMissing = true)
+public class JpaRefreshTokenStore implements RefreshTokenStore {
+
+    private final RefreshTokenRepository refreshTokenRepository;
+
+    @Override
+    @Transactional
+    public void save(String userId, String tokenHash, Instant expiresAt) {
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setId(UUID.randomUUID().toString());
+        refreshToken.setUserId(userId);
+        refreshToken.setTokenHash(tokenHash);
+        refreshToken.setExpiryDate(expiresAt);
+        refreshToken.setCreatedAt(Instant.now());
+        refreshToken.setRevoked(false);
+
+        refreshTokenRepository.save(refreshToken);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<StoredToken> findActive(String tokenHash) {
+        return refreshTokenRepository.findByTokenHashAndRevokedFalse(tokenHash)
+                .map(JpaRefreshTokenStore::toStoredToken);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<StoredToken> findActiveLegacy(String hashPrefix, Predicate<String> hashMatcher) {
+        return refreshTokenRepository.findByRevokedFalseAndTokenHashStartingWith(hashPrefix)
+                .stream()
+                .filter(token -> hashMatcher.test(token.getTokenHash()))
+                .findFirst()
+                .map(JpaRefreshTokenStore::toStoredToken);
+    }
+
+    @Override
+    @Transactional
+    public boolean rotate(StoredToken current, String newTokenHash, Instant newExpiresAt) {
+        // Revoke and insert the successor in one conditional statement;
+        // of concurrent refreshes with the same token exactly one gets a row count of 1
+        return refreshTokenRepository.rotate(
+                current.id(),
+                UUID.randomUUID().toString(),
+                newTokenHash,
+                newExpiresAt,
+                Instant.now()) == 1;
+    }
+
+    @Override
+    @Transactional
+    public void revoke(String tokenHash) {
+        refreshTokenRepository.revokeByTokenHash(tokenHash, Instant.now());
+    }
+
+    @Override
+    @Transactional
+    public int revokeAllForUser(String userId) {
+        // Single set-based UPDATE instead of loading and saving every row
+        return refreshTokenRepository.revokeAllByUserId(userId, Instant.now());
+    }
+
+    private static StoredToken toStoredToken(RefreshToken token) {
+        return new StoredToken(token.getId(), token.getUserId(), token.getTokenHash(), token.getExpiryDate());
+    }
+}
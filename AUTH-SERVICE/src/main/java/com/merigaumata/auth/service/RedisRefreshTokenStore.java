@@ -0,0 +1,93 @@
+package com.merigaumata.auth.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Refresh tokens in Redis: one hash per token ("refresh-token:<hash>" with user and expiry) that
+ * expires together with the token, so expired tokens cost nothing to purge, plus a sorted set per
+ * user ("refresh-tokens:user:<id>") indexing that user's token hashes for revoke-all.
+ * Revoked and rotated tokens are deleted rather than flagged. Writes spanning both keys run as Lua
+ * scripts; they address keys outside KEYS, so this store needs a non-clustered Redis.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "jwt.refresh-token.store", havingValue = "redis")
+public class RedisRefreshTokenStore implements RefreshTokenStore {
+
+    private static final String TOKEN_PREFIX = "refresh-token:";
+    private static final String USER_INDEX_PREFIX = "refresh-tokens:user:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final HashOperations<String, String, String> hashOps;
+    private final RedisScript<Long> saveScript = script("scripts/refresh_token_save.lua");
+    private final RedisScript<Long> rotateScript = script("scripts/refresh_token_rotate.lua");
+    private final RedisScript<Long> revokeAllScript = script("scripts/refresh_token_revoke_all.lua");
+
+    public RedisRefreshTokenStore(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+        this.hashOps = redisTemplate.opsForHash();
+        log.info("Refresh tokens are stored in Redis");
+    }
+
+    @Override
+    public void save(String userId, String tokenHash, Instant expiresAt) {
+        redisTemplate.execute(saveScript,
+                List.of(TOKEN_PREFIX + tokenHash, USER_INDEX_PREFIX + userId),
+                userId, tokenHash, Long.toString(expiresAt.toEpochMilli()), Long.toString(System.currentTimeMillis()));
+    }
+
+    @Override
+    public Optional<StoredToken> findActive(String tokenHash) {
+        Map<String, String> fields = hashOps.entries(TOKEN_PREFIX + tokenHash);
+        if (fields.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(new StoredToken(tokenHash, fields.get("user"), tokenHash,
+                Instant.ofEpochMilli(Long.parseLong(fields.get("exp")))));
+    }
+
+    @Override
+    public boolean rotate(StoredToken current, String newTokenHash, Instant newExpiresAt) {
+        Long rotated = redisTemplate.execute(rotateScript,
+                List.of(TOKEN_PREFIX + current.tokenHash(), TOKEN_PREFIX + newTokenHash,
+                        USER_INDEX_PREFIX + current.userId()),
+                current.userId(), current.tokenHash(), newTokenHash,
+                Long.toString(newExpiresAt.toEpochMilli()), Long.toString(System.currentTimeMillis()));
+        return rotated != null && rotated == 1;
+    }
+
+    @Override
+    public void revoke(String tokenHash) {
+        String userId = hashOps.get(TOKEN_PREFIX + tokenHash, "user");
+        redisTemplate.delete(TOKEN_PREFIX + tokenHash);
+        if (userId != null) {
+            redisTemplate.opsForZSet().remove(USER_INDEX_PREFIX + userId, tokenHash);
+        }
+    }
+
+    @Override
+    public int revokeAllForUser(String userId) {
+        Long revoked = redisTemplate.execute(revokeAllScript, List.of(USER_INDEX_PREFIX + userId), TOKEN_PREFIX);
+        return revoked != null ? revoked.intValue() : 0;
+    }
+
+    private static RedisScript<Long> script(String location) {
+        DefaultRedisScript<Long> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource(location)));
+        script.setResultType(Long.class);
+        return script;
+    }
+}
@@ -0,0 +1,195 @@
+package com.merigaumata.auth.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background purge of the refresh_tokens table: expired rows, and revoked rows once past a grace
+ * window (kept that long for auditing). Rows are deleted in keyset-ordered chunks, one short
+ * autocommit statement each, so no long transaction or big lock is ever held and each chunk resumes
+ * after the last deleted key instead of rescanning dead index entries.
+ * Only one replica purges at a time: the run holds a Postgres session advisory lock, and replicas
+ * that fail to take it skip the run.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "jwt.refresh-token.store", havingValue = "jpa", matchIfMissing = true)
+public class RefreshTokenPurgeJob {
+
+    // Arbitrary application-wide key of the purge advisory lock
+    private static final long PURGE_LOCK_KEY = 0x7266746b70757267L;
+
+    private static final String DELETE_EXPIRED_CHUNK = """
+            WITH chunk AS (
+                SELECT id FROM refresh_tokens
+                WHERE expiry_date < ? AND (expiry_date, id) > (?, ?)
+                ORDER BY expiry_date, id
+                LIMIT ?
+            ), deleted AS (
+                DELETE FROM refresh_tokens t USING chunk WHERE t.id = chunk.id
+                RETURNING t.expiry_date AS cursor_time, t.id
+            )
+            SELECT count(*) OVER () AS deleted, cursor_time, id
+            FROM deleted
+            ORDER BY cursor_time DESC, id DESC
+            LIMIT 1""";
+
+    private static final String DELETE_REVOKED_CHUNK = """
+            WITH chunk AS (
+                SELECT id FROM refresh_tokens
+                WHERE revoked AND revoked_at < ? AND (revoked_at, id) > (?, ?)
+                ORDER BY revoked_at, id
+                LIMIT ?
+            ), deleted AS (
+                DELETE FROM refresh_tokens t USING chunk WHERE t.id = chunk.id
+                RETURNING t.revoked_at AS cursor_time, t.id
+            )
+            SELECT count(*) OVER () AS deleted, cursor_time, id
+            FROM deleted
+            ORDER BY cursor_time DESC, id DESC
+            LIMIT 1""";
+
+    private static final String TABLE_STATS = """
+            SELECT n_live_tup, n_dead_tup, pg_total_relation_size(relid) AS total_bytes
+            FROM pg_stat_user_tables WHERE relname = 'refresh_tokens'""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Counter expiredPurged;
+    private final Counter revokedPurged;
+    private final Timer chunkDuration;
+    private final AtomicLong liveRows = new AtomicLong();
+    private final AtomicLong deadRows = new AtomicLong();
+    private final AtomicLong tableBytes = new AtomicLong();
+
+    @Value("${jwt.refresh-token.purge.enabled:true}")
+    private boolean enabled;
+
+    @Value("${jwt.refresh-token.purge.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${jwt.refresh-token.purge.revoked-grace:P1D}")
+    private Duration revokedGrace;
+
+    public RefreshTokenPurgeJob(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.expiredPurged = purged(meterRegistry, "expired");
+        this.revokedPurged = purged(meterRegistry, "revoked");
+        this.chunkDuration = Timer.builder("refresh.tokens.purge.chunk")
+                .description("Duration of one refresh token purge chunk")
+                .register(meterRegistry);
+        Gauge.builder("refresh.tokens.table.live.rows", liveRows, AtomicLong::get)
+                .description("Estimated live rows in refresh_tokens")
+                .register(meterRegistry);
+        Gauge.builder("refresh.tokens.table.dead.rows", deadRows, AtomicLong::get)
+                .description("Estimated dead rows (bloat) in refresh_tokens awaiting vacuum")
+                .register(meterRegistry);
+        Gauge.builder("refresh.tokens.table.size", tableBytes, AtomicLong::get)
+                .description("Size of refresh_tokens including indexes")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.refresh-token.purge.interval:PT1H}",
+            initialDelayString = "${jwt.refresh-token.purge.initial-delay:PT5M}")
+    public void purge() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            // Session-level lock: it must be taken, held and released on the same connection
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                boolean autoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(true);
+                JdbcTemplate session = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+                try {
+                    if (Boolean.TRUE.equals(session.queryForObject(
+                            "SELECT pg_try_advisory_lock(?)", Boolean.class, PURGE_LOCK_KEY))) {
+                        try {
+                            purgeAll(session);
+                        } finally {
+                            session.queryForObject("SELECT pg_advisory_unlock(?)", Boolean.class, PURGE_LOCK_KEY);
+                        }
+                    } else {
+                        log.debug("Refresh token purge running on another replica, skipping");
+                    }
+                    updateTableStats(session);
+                } finally {
+                    connection.setAutoCommit(autoCommit);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            log.error("Refresh token purge failed", e);
+        }
+    }
+
+    private void purgeAll(JdbcTemplate session) {
+        Instant now = Instant.now();
+        long expired = purgeChunks(session, DELETE_EXPIRED_CHUNK, now, expiredPurged);
+        long revoked = purgeChunks(session, DELETE_REVOKED_CHUNK, now.minus(revokedGrace), revokedPurged);
+        if (expired + revoked > 0) {
+            log.info("Purged {} expired and {} revoked refresh token(s)", expired, revoked);
+        }
+    }
+
+    private long purgeChunks(JdbcTemplate session, String sql, Instant cutoff, Counter purged) {
+        Timestamp cutoffTime = Timestamp.from(cutoff);
+        Timestamp cursorTime = Timestamp.from(Instant.EPOCH);
+        String cursorId = "";
+        long total = 0;
+        while (true) {
+            long start = System.nanoTime();
+            // One row: the number of rows deleted and the largest deleted key, ordered by the database
+            List<Chunk> chunks = session.query(sql,
+                    (rs, rowNum) -> new Chunk(rs.getInt("deleted"), rs.getTimestamp("cursor_time"), rs.getString("id")),
+                    cutoffTime, cursorTime, cursorId, chunkSize);
+            chunkDuration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (chunks.isEmpty()) {
+                return total;
+            }
+            Chunk chunk = chunks.get(0);
+            purged.increment(chunk.deleted());
+            total += chunk.deleted();
+            cursorTime = chunk.lastTime();
+            cursorId = chunk.lastId();
+            if (chunk.deleted() < chunkSize) {
+                return total;
+            }
+        }
+    }
+
+    private void updateTableStats(JdbcTemplate session) {
+        session.query(TABLE_STATS, rs -> {
+            liveRows.set(rs.getLong("n_live_tup"));
+            deadRows.set(rs.getLong("n_dead_tup"));
+            tableBytes.set(rs.getLong("total_bytes"));
+        });
+    }
+
+    private static Counter purged(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("refresh.tokens.purged")
+                .description("Refresh token rows deleted by the purge job")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private record Chunk(int deleted, Timestamp lastTime, String lastId) {
+    }
+}
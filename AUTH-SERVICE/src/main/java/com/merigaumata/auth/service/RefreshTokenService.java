@@ -1,113 +1,122 @@
 package com.merigaumata.auth.service;
 
-import com.merigaumata.auth.entity.RefreshToken;
 import com.merigaumata.auth.model.LoginResponse;
-import com.merigaumata.auth.repository.RefreshTokenRepository;
 import com.merigaumata.auth.security.JwtTokenProvider;
+import com.merigaumata.auth.security.RefreshTokenHasher;
+import com.merigaumata.auth.service.RefreshTokenStore.StoredToken;
+import com.merigaumata.user.model.UserAuthInfo;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.ObjectUtils;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.time.Instant;
 import java.util.List;
-import java.util.UUID;
+import java.util.Optional;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class RefreshTokenService {
 
-    private final RefreshTokenRepository refreshTokenRepository;
+    private final RefreshTokenStore refreshTokenStore;
     private final JwtTokenProvider jwtTokenProvider;
+    private final RefreshTokenHasher refreshTokenHasher;
     private final PasswordEncoder passwordEncoder;
+    private final UserAuthInfoCache userAuthInfoCache;
+
+    // Tokens issued before keyed hashing are stored as Argon2 hashes; disable once they have all expired
+    @Value("${jwt.refresh-token.legacy-hash-fallback:true}")
+    private boolean legacyHashFallback;
 
-    @Transactional
     public void createRefreshToken(String userId, String token) {
         // Hash the refresh token before storing
-        String hashedToken = passwordEncoder.encode(token);
-
-        RefreshToken refreshToken = new RefreshToken();
-        refreshToken.setId(UUID.randomUUID().toString());
-        refreshToken.setUserId(userId);
-        refreshToken.setTokenHash(hashedToken);
-        refreshToken.setExpiryDate(Instant.now().plusSeconds(jwtTokenProvider.getRefreshTokenValidity()));
-        refreshToken.setCreatedAt(Instant.now());
-        refreshToken.setRevoked(false);
-
-        refreshTokenRepository.save(refreshToken);
+        refreshTokenStore.save(userId, refreshTokenHasher.hash(token),
+                Instant.now().plusSeconds(jwtTokenProvider.getRefreshTokenValidity()));
     }
 
-    @Transactional
-    public LoginResponse refreshAccessToken(String refreshToken) {
-        // Find all non-revoked tokens for verification
-        List<RefreshToken> tokens = refreshTokenRepository.findByRevokedFalse();
-
-        RefreshToken validToken = null;
-        for (RefreshToken token : tokens) {
-            if (passwordEncoder.matches(refreshToken, token.getTokenHash())) {
-                validToken = token;
-                break;
-            }
-        }
+    /**
+     * Store reads and writes run on a blocking-capable scheduler; the user lookup is the cache's
+     * non-blocking WebClient call.
+     */
+    public Mono<LoginResponse> refreshAccessToken(String refreshToken) {
+        return Mono.fromCallable(() -> findValidToken(refreshToken))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(validToken -> userAuthInfoCache.find(validToken.userId())
+                        // Current roles, so role changes and disabled accounts take effect on refresh
+                        .map(authInfo -> authInfo
+                                .filter(info -> !Boolean.FALSE.equals(info.getEnabled()))
+                                .orElseThrow(() -> new RuntimeException("User is no longer active")))
+                        .flatMap(authInfo -> rotate(validToken, authInfo)));
+    }
 
-        if (validToken == null) {
-            throw new RuntimeException("Invalid refresh token");
-        }
+    private StoredToken findValidToken(String refreshToken) {
+        StoredToken validToken = refreshTokenStore
+                .findActive(refreshTokenHasher.hash(refreshToken))
+                .filter(token -> refreshTokenHasher.matches(refreshToken, token.tokenHash()))
+                .or(() -> findLegacyToken(refreshToken))
+                .orElseThrow(() -> new RuntimeException("Invalid refresh token"));
 
-        if (validToken.getExpiryDate().isBefore(Instant.now())) {
+        if (validToken.expiresAt().isBefore(Instant.now())) {
             throw new RuntimeException("Refresh token expired");
         }
+        return validToken;
+    }
 
-        // Rotate refresh token (one-time use)
-        revokeRefreshToken(validToken.getId());
-
-        String userId = validToken.getUserId();
-
-        // Generate new tokens
-        List<String> roles = List.of("ROLE_USER"); // Fetch from user service in production
+    private Mono<LoginResponse> rotate(StoredToken validToken, UserAuthInfo authInfo) {
+        String userId = validToken.userId();
+        List<String> roles = ObjectUtils.isEmpty(authInfo.getRoles()) ? List.of("ROLE_USER") : authInfo.getRoles();
         List<String> scopes = List.of("read", "write");
 
-        String newAccessToken = jwtTokenProvider.generateAccessToken(userId, roles, scopes, "api-gateway");
+        // Rotate refresh token (one-time use); a concurrent refresh with the same token loses
         String newRefreshToken = jwtTokenProvider.generateRefreshToken(userId);
-
-        // Store new refresh token
-        createRefreshToken(userId, newRefreshToken);
-
-        return LoginResponse.builder()
-                .accessToken(newAccessToken)
-                .refreshToken(newRefreshToken)
-                .expiresIn(jwtTokenProvider.getAccessTokenValidity())
-                .userId(userId)
-                .roles(roles)
-                .scopes(scopes)
-                .build();
+        return Mono.fromCallable(() -> refreshTokenStore.rotate(validToken, refreshTokenHasher.hash(newRefreshToken),
+                        Instant.now().plusSeconds(jwtTokenProvider.getRefreshTokenValidity())))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(rotated -> {
+                    if (!rotated) {
+                        log.warn("Refresh token {} was already used or expired during rotation", validToken.id());
+                        throw new RuntimeException("Invalid refresh token");
+                    }
+
+                    String newAccessToken = jwtTokenProvider.generateAccessToken(userId, roles, scopes, "api-gateway");
+
+                    return LoginResponse.builder()
+                            .accessToken(newAccessToken)
+                            .refreshToken(newRefreshToken)
+                            .expiresIn(jwtTokenProvider.getAccessTokenValidity())
+                            .userId(userId)
+                            .roles(roles)
+                            .scopes(scopes)
+                            .build();
+                });
     }
 
-    @Transactional
-    public void revokeRefreshToken(String tokenOrId) {
-        refreshTokenRepository.findById(tokenOrId)
-                .ifPresent(token -> {
-                    token.setRevoked(true);
-                    token.setRevokedAt(Instant.now());
-                    refreshTokenRepository.save(token);
-                });
+    /**
+     * Migration path for tokens hashed with Argon2 before keyed hashing was introduced.
+     * Only legacy-shaped tokens are checked, and only against legacy rows; a match is rotated
+     * into the new format by the caller, so this set drains within one refresh-token lifetime.
+     */
+    private Optional<StoredToken> findLegacyToken(String refreshToken) {
+        if (!legacyHashFallback || !refreshTokenHasher.isLegacyToken(refreshToken)) {
+            return Optional.empty();
+        }
+        return refreshTokenStore.findActiveLegacy(refreshTokenHasher.getLegacyHashPrefix(),
+                tokenHash -> passwordEncoder.matches(refreshToken, tokenHash));
     }
 
-    @Transactional
-    public void revokeAllUserTokens(String userId) {
-        List<RefreshToken> tokens = refreshTokenRepository.findByUserIdAndRevokedFalse(userId);
-        tokens.forEach(token -> {
-            token.setRevoked(true);
-            token.setRevokedAt(Instant.now());
-        });
-        refreshTokenRepository.saveAll(tokens);
+    public void revokeRefreshToken(String refreshToken) {
+        refreshTokenStore.revoke(refreshTokenHasher.hash(refreshToken));
+        // Legacy tokens are stored under their Argon2 hash; find them the same way refresh does
+        findLegacyToken(refreshToken).ifPresent(legacyToken -> refreshTokenStore.revoke(legacyToken.tokenHash()));
     }
 
-    @Transactional
-    public void cleanupExpiredTokens() {
-        refreshTokenRepository.deleteByExpiryDateBefore(Instant.now());
-        log.info("Cleaned up expired refresh tokens");
+    public void revokeAllUserTokens(String userId) {
+        int revoked = refreshTokenStore.revokeAllForUser(userId);
+        log.info("Revoked {} refresh token(s) for user: {}", revoked, userId);
     }
-}
\ No newline at end of file
+}
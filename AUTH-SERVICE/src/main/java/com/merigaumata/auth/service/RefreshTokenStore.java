@@ -0,0 +1,39 @@
+package com.merigaumata.auth.service;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+/**
+ * Storage of refresh token hashes, selected with jwt.refresh-token.store: "jpa" (default, the
+ * refresh_tokens table, purged by RefreshTokenPurgeJob) or "redis" (per-token keys expiring with the token).
+ */
+public interface RefreshTokenStore {
+
+    void save(String userId, String tokenHash, Instant expiresAt);
+
+    /**
+     * Token with this hash if it is neither revoked nor rotated; may already be past its expiry
+     */
+    Optional<StoredToken> findActive(String tokenHash);
+
+    /**
+     * Tokens stored as Argon2 hashes before keyed hashing; only the JPA store can hold them
+     */
+    default Optional<StoredToken> findActiveLegacy(String hashPrefix, Predicate<String> hashMatcher) {
+        return Optional.empty();
+    }
+
+    /**
+     * Atomically retires the current token and stores its successor.
+     * Returns false if the current token was already rotated, revoked or has expired.
+     */
+    boolean rotate(StoredToken current, String newTokenHash, Instant newExpiresAt);
+
+    void revoke(String tokenHash);
+
+    int revokeAllForUser(String userId);
+
+    record StoredToken(String id, String userId, String tokenHash, Instant expiresAt) {
+    }
+}
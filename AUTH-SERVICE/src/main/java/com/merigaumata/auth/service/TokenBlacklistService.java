@@ -4,11 +4,14 @@ import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.SignedJWT;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 @Slf4j
@@ -16,8 +19,19 @@ import java.util.concurrent.TimeUnit;
 @RequiredArgsConstructor
 public class TokenBlacklistService {
 
-    private final RedisTemplate<String, Object> redisTemplate;
+    // Plain string keys and values so other services (the gateway) can read the blacklist
+    private final StringRedisTemplate redisTemplate;
     private static final String BLACKLIST_PREFIX = "blacklist:";
+    // Per-user "tokens not valid before" epoch (epoch seconds, as iat); revokes every token of a user with one write
+    private static final String TOKEN_EPOCH_PREFIX = "token-epoch:";
+
+    // Subscribers keep a local copy of the blacklist; message formats:
+    // "jti <jti> <exp epoch seconds>" and "user <userId> <not-before epoch seconds> <expiry epoch seconds>"
+    @Value("${jwt.revocation.channel:token-revocations}")
+    private String revocationChannel;
+
+    @Value("${jwt.access-token-validity:900}")
+    private long accessTokenValidity;
 
     public void blacklistToken(String token) {
         try {
@@ -30,6 +44,8 @@ public class TokenBlacklistService {
                 long ttl = expiration.getTime() - System.currentTimeMillis();
 
                 redisTemplate.opsForValue().set(key, "revoked", ttl, TimeUnit.MILLISECONDS);
+                redisTemplate.convertAndSend(revocationChannel,
+                        "jti " + claims.getJWTID() + " " + expiration.toInstant().getEpochSecond());
                 log.info("Token blacklisted: {}", claims.getJWTID());
             }
         } catch (Exception e) {
@@ -37,16 +53,79 @@ public class TokenBlacklistService {
         }
     }
 
-    public boolean isBlacklisted(String token) {
-        try {
-            SignedJWT signedJWT = SignedJWT.parse(token);
-            JWTClaimsSet claims = signedJWT.getJWTClaimsSet();
-            String key = BLACKLIST_PREFIX + claims.getJWTID();
+    /**
+     * Invalidates every access token issued to the user so far (password change, account lock).
+     * Tokens whose iat is before the epoch are rejected; the key only has to outlive them.
+     * The epoch has the whole-second precision of iat, so a token issued within the revocation's
+     * own second stays valid: a login right after the revocation is never rejected.
+     */
+    public void revokeAllUserTokens(String userId) {
+        Instant now = Instant.now();
+        long notBefore = now.getEpochSecond();
+        long expiresAt = notBefore + accessTokenValidity + 1;
 
-            return Boolean.TRUE.equals(redisTemplate.hasKey(key));
-        } catch (Exception e) {
-            log.error("Failed to check blacklist", e);
+        redisTemplate.opsForValue().set(TOKEN_EPOCH_PREFIX + userId, Long.toString(notBefore),
+                accessTokenValidity + 1, TimeUnit.SECONDS);
+        redisTemplate.convertAndSend(revocationChannel, "user " + userId + " " + notBefore + " " + expiresAt);
+        log.info("All tokens revoked for user: {}", userId);
+    }
+
+    /**
+     * Whether all of the user's tokens have been revoked in a second that started after changedAt
+     * (epoch seconds). A revocation in that second or later already covers every token issued before
+     * the change, so repeating it would only reject sessions started since.
+     */
+    public boolean isRevokedAfter(String userId, long changedAt) {
+        String tokenEpoch = redisTemplate.opsForValue().get(TOKEN_EPOCH_PREFIX + userId);
+        return tokenEpoch != null && Long.parseLong(tokenEpoch) > changedAt;
+    }
+
+    /**
+     * Revocation status for each claims set, in order; null entries (unparseable tokens) are skipped.
+     * Blacklist entries and user token epochs for the whole batch are read with a single MGET.
+     * A failed read is thrown rather than reported as "not revoked"; the caller decides how to fail.
+     */
+    public List<Boolean> areRevoked(List<JWTClaimsSet> claimsList) {
+        List<String> keys = new ArrayList<>(claimsList.size() * 2);
+        for (JWTClaimsSet claims : claimsList) {
+            if (claims != null) {
+                keys.add(BLACKLIST_PREFIX + claims.getJWTID());
+                keys.add(TOKEN_EPOCH_PREFIX + claims.getSubject());
+            }
+        }
+
+        List<String> values = keys.isEmpty() ? List.of() : redisTemplate.opsForValue().multiGet(keys);
+        if (values == null) {
+            // Only returned inside a pipeline or transaction, never for a plain read
+            throw new IllegalStateException("Blacklist lookup returned no result");
+        }
+
+        List<Boolean> revoked = new ArrayList<>(claimsList.size());
+        int index = 0;
+        for (JWTClaimsSet claims : claimsList) {
+            if (claims == null) {
+                revoked.add(false);
+                continue;
+            }
+            revoked.add(values.get(index) != null || isBeforeEpoch(claims, values.get(index + 1)));
+            index += 2;
+        }
+        return revoked;
+    }
+
+    private static boolean isBeforeEpoch(JWTClaimsSet claims, String tokenEpoch) {
+        if (tokenEpoch == null) {
             return false;
         }
+        Date issueTime = claims.getIssueTime();
+        return issueTime == null || isIssuedBefore(issueTime.toInstant().getEpochSecond(), Long.parseLong(tokenEpoch));
+    }
+
+    /**
+     * Whether a token with the given iat predates the not-before epoch, both in epoch seconds.
+     * Tokens issued within the epoch's own second are valid, see {@link #revokeAllUserTokens(String)}.
+     */
+    static boolean isIssuedBefore(long issuedAtSeconds, long notBeforeSeconds) {
+        return issuedAtSeconds < notBeforeSeconds;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,281 @@
+package com.merigaumata.auth.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.merigaumata.auth.exception.ValidationException;
+import com.merigaumata.auth.model.TokenIntrospectionResponse;
+import com.merigaumata.auth.security.TokenVerifier;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token introspection pipeline: shape check, one parse, signature check against the local keyring,
+ * one revocation lookup for the whole batch. Verdicts for correctly signed tokens are cached per jti
+ * and dropped when the token or its user is revoked. Active verdicts are kept for at most max-ttl:
+ * revocations published while the pub/sub connection is down are never delivered, and the cap bounds
+ * how long such a token still introspects as active. If the revocation lookup fails, the tokens
+ * are reported inactive and nothing is cached.
+ */
+@Slf4j
+@Service
+public class TokenIntrospectionService implements MessageListener {
+
+    private static final int MAX_TOKEN_LENGTH = 8192;
+
+    private final TokenVerifier tokenVerifier;
+    private final TokenBlacklistService tokenBlacklistService;
+    private final int maxBatchSize;
+    private final Cache<String, Verdict> verdicts;
+    // Bumped by every revocation message; a verdict computed across a bump may predate that revocation
+    private final AtomicLong revocations = new AtomicLong();
+    private final ThreadLocal<MessageDigest> digests = ThreadLocal.withInitial(TokenIntrospectionService::newDigest);
+
+    public TokenIntrospectionService(TokenVerifier tokenVerifier,
+                                     TokenBlacklistService tokenBlacklistService,
+                                     RedisMessageListenerContainer listenerContainer,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${jwt.revocation.channel:token-revocations}") String revocationChannel,
+                                     @Value("${jwt.introspection.max-batch-size:100}") int maxBatchSize,
+                                     @Value("${jwt.introspection.cache.maximum-size:100000}") long cacheMaximumSize,
+                                     @Value("${jwt.introspection.cache.max-ttl:30s}") Duration cacheMaxTtl) {
+        this.tokenVerifier = tokenVerifier;
+        this.tokenBlacklistService = tokenBlacklistService;
+        this.maxBatchSize = maxBatchSize;
+        this.verdicts = Caffeine.newBuilder()
+                .maximumSize(cacheMaximumSize)
+                .expireAfter(new VerdictExpiry(cacheMaxTtl))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verdicts, "token.introspection.verdicts");
+        // Revocations from any replica invalidate cached verdicts
+        listenerContainer.addMessageListener(this, new ChannelTopic(revocationChannel));
+    }
+
+    public TokenIntrospectionResponse introspect(String token) {
+        return introspect(Collections.singletonList(token)).get(0);
+    }
+
+    /**
+     * Introspects tokens in request order; uncached tokens share a single Redis round trip
+     */
+    public List<TokenIntrospectionResponse> introspect(List<String> tokens) {
+        if (tokens == null || tokens.isEmpty() || tokens.size() > maxBatchSize) {
+            throw new ValidationException(
+                    "Introspection batch must contain between 1 and " + maxBatchSize + " tokens", null);
+        }
+
+        long now = System.currentTimeMillis();
+        TokenIntrospectionResponse[] responses = new TokenIntrospectionResponse[tokens.size()];
+        List<Integer> pendingIndexes = new ArrayList<>();
+        List<JWTClaimsSet> pendingClaims = new ArrayList<>();
+        List<byte[]> pendingDigests = new ArrayList<>();
+
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            SignedJWT signedJWT = looksLikeJws(token) ? parse(token) : null;
+            JWTClaimsSet claims = signedJWT != null ? liveClaims(signedJWT, now) : null;
+            if (claims == null) {
+                responses[i] = inactive();
+                continue;
+            }
+
+            byte[] digest = digest(token);
+            Verdict cached = claims.getJWTID() != null ? verdicts.getIfPresent(claims.getJWTID()) : null;
+            if (cached != null && MessageDigest.isEqual(cached.tokenDigest(), digest)) {
+                responses[i] = cached.response();
+                continue;
+            }
+
+            if (!tokenVerifier.verify(signedJWT)) {
+                // Not cached: the jti of a forged token is attacker-chosen
+                responses[i] = inactive();
+                continue;
+            }
+            pendingIndexes.add(i);
+            pendingClaims.add(claims);
+            pendingDigests.add(digest);
+        }
+
+        if (!pendingClaims.isEmpty()) {
+            long generation = revocations.get();
+            List<Boolean> revoked;
+            try {
+                revoked = tokenBlacklistService.areRevoked(pendingClaims);
+            } catch (DataAccessException e) {
+                // Revocation status unknown: fail closed, and cache nothing so the next call looks again
+                log.error("Revocation lookup failed, reporting {} token(s) inactive: {}",
+                        pendingClaims.size(), e.getMessage());
+                for (int index : pendingIndexes) {
+                    responses[index] = inactive();
+                }
+                return List.of(responses);
+            }
+            for (int p = 0; p < pendingClaims.size(); p++) {
+                JWTClaimsSet claims = pendingClaims.get(p);
+                TokenIntrospectionResponse response = revoked.get(p) ? inactive() : active(claims);
+                responses[pendingIndexes.get(p)] = response;
+                if (claims.getJWTID() != null) {
+                    cache(claims.getJWTID(), new Verdict(pendingDigests.get(p), claims.getSubject(),
+                            claims.getExpirationTime().getTime(), response), generation);
+                }
+            }
+        }
+        return List.of(responses);
+    }
+
+    /**
+     * Caches a verdict unless a revocation message arrived since the lookup began. The message may
+     * land between the check and the put, so the put is re-checked: either the message's invalidation
+     * runs after the put, or the bumped generation is seen here and the verdict is removed again.
+     */
+    private void cache(String jti, Verdict verdict, long generation) {
+        if (revocations.get() != generation) {
+            return;
+        }
+        verdicts.put(jti, verdict);
+        if (revocations.get() != generation) {
+            verdicts.asMap().remove(jti, verdict);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        // Bumped before invalidating, see cache()
+        revocations.incrementAndGet();
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(" ");
+        if (parts.length >= 2 && "jti".equals(parts[0])) {
+            verdicts.invalidate(parts[1]);
+        } else if (parts.length >= 2 && "user".equals(parts[0])) {
+            String userId = parts[1];
+            verdicts.asMap().values().removeIf(verdict -> userId.equals(verdict.subject()));
+        }
+    }
+
+    /**
+     * Cheap structural check so garbage never reaches the parser: three base64url segments, bounded length
+     */
+    private static boolean looksLikeJws(String token) {
+        if (token == null || token.isEmpty() || token.length() > MAX_TOKEN_LENGTH) {
+            return false;
+        }
+        int dots = 0;
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if (c == '.') {
+                dots++;
+            } else if (!(c >= 'A' && c <= 'Z' || c >= 'a' && c <= 'z' || c >= '0' && c <= '9' || c == '-' || c == '_')) {
+                return false;
+            }
+        }
+        return dots == 2;
+    }
+
+    private static SignedJWT parse(String token) {
+        try {
+            return SignedJWT.parse(token);
+        } catch (ParseException e) {
+            log.debug("Malformed token in introspection: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static JWTClaimsSet liveClaims(SignedJWT signedJWT, long now) {
+        try {
+            JWTClaimsSet claims = signedJWT.getJWTClaimsSet();
+            // Expired tokens need neither a signature check nor a revocation lookup
+            if (claims.getExpirationTime() == null || claims.getExpirationTime().getTime() <= now) {
+                return null;
+            }
+            return claims;
+        } catch (ParseException e) {
+            log.debug("Malformed token claims in introspection: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private TokenIntrospectionResponse active(JWTClaimsSet claims) {
+        try {
+            return TokenIntrospectionResponse.builder()
+                    .active(true)
+                    .subject(claims.getSubject())
+                    .issuer(claims.getIssuer())
+                    .expiration(claims.getExpirationTime().getTime() / 1000)
+                    .roles(claims.getStringListClaim("roles"))
+                    .scopes(claims.getStringListClaim("scopes"))
+                    .build();
+        } catch (ParseException e) {
+            log.debug("Token with malformed claims in introspection: {}", e.getMessage());
+            return inactive();
+        }
+    }
+
+    private static TokenIntrospectionResponse inactive() {
+        return new TokenIntrospectionResponse(false, null, null, null, null, null);
+    }
+
+    private byte[] digest(String token) {
+        return digests.get().digest(token.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record Verdict(byte[] tokenDigest, String subject, long expiresAtMillis, TokenIntrospectionResponse response) {
+    }
+
+    private static class VerdictExpiry implements Expiry<String, Verdict> {
+
+        private final long maxActiveMillis;
+
+        VerdictExpiry(Duration maxActiveTtl) {
+            this.maxActiveMillis = maxActiveTtl.toMillis();
+        }
+
+        @Override
+        public long expireAfterCreate(String jti, Verdict verdict, long currentTime) {
+            long remaining = Math.max(verdict.expiresAtMillis() - System.currentTimeMillis(), 0);
+            // A revoked token stays revoked until it expires; only active verdicts can go stale
+            if (Boolean.TRUE.equals(verdict.response().getActive())) {
+                remaining = Math.min(remaining, maxActiveMillis);
+            }
+            return TimeUnit.MILLISECONDS.toNanos(remaining);
+        }
+
+        @Override
+        public long expireAfterUpdate(String jti, Verdict verdict, long currentTime, long currentDuration) {
+            return expireAfterCreate(jti, verdict, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String jti, Verdict verdict, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.merigaumata.auth.service;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.merigaumata.user.api.UsersApi;
+import com.merigaumata.user.model.UserAuthInfo;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Short-lived cache of the credentials, roles and enabled flag of users, as served by UserService.
+ * Repeated logins and refreshes of a user share one lookup; concurrent misses for the same user wait
+ * on a single call. Unknown usernames are cached too, so failed logins for them don't fan out either.
+ * UserService evicts an entry when the user's password, roles or enabled state change; the TTL bounds
+ * staleness if that notification is lost.
+ * Entries are loaded asynchronously: a miss subscribes to the UsersApi call and no thread waits for it.
+ */
+@Service
+public class UserAuthInfoCache {
+
+    private final UsersApi usersApi;
+    private final AsyncLoadingCache<String, Optional<UserAuthInfo>> cache;
+
+    public UserAuthInfoCache(UsersApi usersApi,
+                             MeterRegistry meterRegistry,
+                             @Value("${security.user-cache.ttl:30s}") Duration ttl,
+                             @Value("${security.user-cache.maximum-size:10000}") long maximumSize) {
+        this.usersApi = usersApi;
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maximumSize)
+                .recordStats()
+                .buildAsync((username, executor) -> load(username).toFuture());
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "user.auth-info");
+    }
+
+    public Mono<Optional<UserAuthInfo>> find(String username) {
+        return Mono.fromFuture(() -> cache.get(username), true);
+    }
+
+    /**
+     * Blocking lookup for callers outside a reactive pipeline
+     */
+    public Optional<UserAuthInfo> get(String username) {
+        return find(username).block();
+    }
+
+    public void evict(String username) {
+        cache.synchronous().invalidate(username);
+    }
+
+    private Mono<Optional<UserAuthInfo>> load(String username) {
+        return usersApi.getUserAuthInfo(username)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .onErrorResume(WebClientResponseException.NotFound.class, e -> Mono.just(Optional.empty()));
+    }
+}
@@ -0,0 +1,31 @@
+-- Sliding-window login failure counters, one sorted set per key (score = failure time in ms).
+-- KEYS: counters to evaluate (username, client IP)
+-- ARGV[1]: now (ms), ARGV[2]: window (ms), ARGV[3]: member to record, '' to only check
+-- ARGV[4..]: failure limit per key, in KEYS order
+-- Returns {count, retryAfterMs} per key; retryAfterMs > 0 while the key is locked
+local now = tonumber(ARGV[1])
+local window = tonumber(ARGV[2])
+local member = ARGV[3]
+local result = {}
+
+for i, key in ipairs(KEYS) do
+    redis.call('ZREMRANGEBYSCORE', key, '-inf', now - window)
+    if member ~= '' then
+        redis.call('ZADD', key, now, member)
+        redis.call('PEXPIRE', key, window)
+    end
+
+    local count = redis.call('ZCARD', key)
+    local limit = tonumber(ARGV[3 + i])
+    local retryAfter = 0
+    if count >= limit then
+        -- Locked until enough failures age out of the window to drop below the limit
+        local pivot = redis.call('ZRANGE', key, count - limit, count - limit, 'WITHSCORES')
+        retryAfter = math.max(tonumber(pivot[2]) + window - now, 1)
+    end
+
+    result[2 * i - 1] = count
+    result[2 * i] = retryAfter
+end
+
+return result
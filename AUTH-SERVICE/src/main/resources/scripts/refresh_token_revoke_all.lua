@@ -0,0 +1,9 @@
+-- Revokes every refresh token of a user. Returns the number of live tokens deleted.
+-- KEYS[1]: user index, ARGV[1]: token key prefix
+local hashes = redis.call('ZRANGE', KEYS[1], 0, -1)
+local revoked = 0
+for _, hash in ipairs(hashes) do
+    revoked = revoked + redis.call('DEL', ARGV[1] .. hash)
+end
+redis.call('DEL', KEYS[1])
+return revoked
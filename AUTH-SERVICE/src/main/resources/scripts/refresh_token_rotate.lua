@@ -0,0 +1,20 @@
+-- One-time-use rotation: deletes the presented token and stores its successor, only if the presented
+-- token still exists. Returns 1 if this call rotated it, 0 if it was already used, revoked or expired.
+-- KEYS[1]: current token key, KEYS[2]: new token key, KEYS[3]: user index
+-- ARGV[1]: user id, ARGV[2]: current token hash, ARGV[3]: new token hash, ARGV[4]: new expiry (epoch ms),
+-- ARGV[5]: now (epoch ms)
+if redis.call('DEL', KEYS[1]) == 0 then
+    return 0
+end
+local expiresAt = tonumber(ARGV[4])
+
+redis.call('HSET', KEYS[2], 'user', ARGV[1], 'exp', ARGV[4])
+redis.call('PEXPIREAT', KEYS[2], expiresAt)
+
+redis.call('ZREM', KEYS[3], ARGV[2])
+redis.call('ZREMRANGEBYSCORE', KEYS[3], '-inf', ARGV[5])
+redis.call('ZADD', KEYS[3], expiresAt, ARGV[3])
+if redis.call('PTTL', KEYS[3]) < expiresAt - tonumber(ARGV[5]) then
+    redis.call('PEXPIREAT', KEYS[3], expiresAt)
+end
+return 1
@@ -0,0 +1,15 @@
+-- Stores a refresh token and indexes it under its user.
+-- KEYS[1]: token key, KEYS[2]: user index (sorted set of token hashes scored by expiry)
+-- ARGV[1]: user id, ARGV[2]: token hash, ARGV[3]: expiry (epoch ms), ARGV[4]: now (epoch ms)
+local expiresAt = tonumber(ARGV[3])
+
+redis.call('HSET', KEYS[1], 'user', ARGV[1], 'exp', ARGV[3])
+redis.call('PEXPIREAT', KEYS[1], expiresAt)
+
+-- Drop members whose token keys have expired, then keep the index alive as long as its newest token
+redis.call('ZREMRANGEBYSCORE', KEYS[2], '-inf', ARGV[4])
+redis.call('ZADD', KEYS[2], expiresAt, ARGV[2])
+if redis.call('PTTL', KEYS[2]) < expiresAt - tonumber(ARGV[4]) then
+    redis.call('PEXPIREAT', KEYS[2], expiresAt)
+end
+return 1
@@ -0,0 +1,98 @@
+package com.merigaumata.auth.security;
+
+import com.merigaumata.auth.exception.ForbiddenException;
+import com.merigaumata.auth.exception.UnauthorizedException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Credentials on the internal endpoints: missing or malformed headers are rejected as unauthorized
+ * instead of failing inside the check.
+ */
+class ServiceTokenVerifierTest {
+
+    private final TokenVerifier tokenVerifier = mock(TokenVerifier.class);
+    private final ServiceTokenVerifier serviceTokenVerifier = new ServiceTokenVerifier(tokenVerifier);
+
+    @BeforeEach
+    void setUp() {
+        when(tokenVerifier.verify(any())).thenReturn(true);
+    }
+
+    @Test
+    void acceptsServiceToken() throws Exception {
+        JWTClaimsSet claims = serviceTokenVerifier.verify("Bearer " + token("auth-service", "ROLE_SERVICE", 60));
+
+        assertThat(claims.getSubject()).isEqualTo("user-service");
+    }
+
+    @Test
+    void rejectsMissingOrBlankHeader() {
+        assertThatThrownBy(() -> serviceTokenVerifier.verify(null)).isInstanceOf(UnauthorizedException.class);
+        assertThatThrownBy(() -> serviceTokenVerifier.verify(" ")).isInstanceOf(UnauthorizedException.class);
+        assertThatThrownBy(() -> serviceTokenVerifier.verify("Bearer ")).isInstanceOf(UnauthorizedException.class);
+    }
+
+    @Test
+    void rejectsSharedSecretAndGarbage() {
+        assertThatThrownBy(() -> serviceTokenVerifier.verify("704383aa1300e68fdb449b6ec1aa1f2c"))
+                .isInstanceOf(UnauthorizedException.class);
+        assertThatThrownBy(() -> serviceTokenVerifier.verify("Bearer not-a-jwt"))
+                .isInstanceOf(UnauthorizedException.class);
+    }
+
+    @Test
+    void rejectsBadSignature() throws Exception {
+        when(tokenVerifier.verify(any())).thenReturn(false);
+
+        assertThatThrownBy(() -> serviceTokenVerifier.verify("Bearer " + token("auth-service", "ROLE_SERVICE", 60)))
+                .isInstanceOf(UnauthorizedException.class);
+    }
+
+    @Test
+    void rejectsExpiredToken() throws Exception {
+        assertThatThrownBy(() -> serviceTokenVerifier.verify("Bearer " + token("auth-service", "ROLE_SERVICE", -1)))
+                .isInstanceOf(UnauthorizedException.class);
+    }
+
+    @Test
+    void rejectsUserAccessToken() throws Exception {
+        // User tokens are addressed to the gateway
+        assertThatThrownBy(() -> serviceTokenVerifier.verify("Bearer " + token("api-gateway", "ROLE_USER", 60)))
+                .isInstanceOf(UnauthorizedException.class);
+        assertThatThrownBy(() -> serviceTokenVerifier.verify("Bearer " + token("auth-service", "ROLE_USER", 60)))
+                .isInstanceOf(ForbiddenException.class);
+    }
+
+    private static String token(String audience, String role, long validForSeconds) throws Exception {
+        Instant now = Instant.now();
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .subject("user-service")
+                .issuer("auth-service")
+                .audience(audience)
+                .issueTime(Date.from(now))
+                .expirationTime(Date.from(now.plusSeconds(validForSeconds)))
+                .claim("roles", List.of(role))
+                .build();
+        SignedJWT signedJWT = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.ES256).keyID("test-key").build(), claims);
+        signedJWT.sign(new ECDSASigner(new ECKeyGenerator(Curve.P_256).generate()));
+        return signedJWT.serialize();
+    }
+}
@@ -0,0 +1,156 @@
+package com.merigaumata.auth.service;
+
+import com.merigaumata.auth.config.ConnectionHoldTimeDataSource;
+import com.merigaumata.auth.mapper.AuthMapper;
+import com.merigaumata.auth.model.LoginRequest;
+import com.merigaumata.auth.model.RegisterRequest;
+import com.merigaumata.auth.security.BoundedPasswordEncoder;
+import com.merigaumata.auth.security.JwtTokenProvider;
+import com.merigaumata.auth.security.PasswordPolicy;
+import com.merigaumata.user.api.UsersApi;
+import com.merigaumata.user.model.CreateUserRequest;
+import com.merigaumata.user.model.UserAuthInfo;
+import com.merigaumata.user.model.UserResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import reactor.core.publisher.Mono;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Login and registration must not hold a database connection while they wait on UserService;
+ * only the refresh-token write may borrow one. AuthService runs behind the transaction proxy over a
+ * transaction manager on the measured DataSource, so a transactional boundary around either flow
+ * shows up as a connection held during the remote call or as an extra checkout.
+ */
+@SpringJUnitConfig(AuthServiceConnectionHoldTest.Config.class)
+class AuthServiceConnectionHoldTest {
+
+    @Configuration
+    @EnableTransactionManagement
+    @Import({AuthService.class, CustomUserDetailsService.class})
+    static class Config {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        ConnectionHoldTimeDataSource dataSource(MeterRegistry meterRegistry) throws Exception {
+            DataSource pool = mock(DataSource.class);
+            when(pool.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+            return new ConnectionHoldTimeDataSource(pool, meterRegistry);
+        }
+
+        @Bean
+        PlatformTransactionManager transactionManager(DataSource dataSource) {
+            return new DataSourceTransactionManager(dataSource);
+        }
+
+        @Bean
+        UserAuthInfoCache userAuthInfoCache(UsersApi usersApi, MeterRegistry meterRegistry) {
+            return new UserAuthInfoCache(usersApi, meterRegistry, Duration.ofSeconds(30), 100);
+        }
+    }
+
+    @MockitoBean
+    private UsersApi usersApi;
+    @MockitoBean
+    private JwtTokenProvider jwtTokenProvider;
+    @MockitoBean
+    private RefreshTokenService refreshTokenService;
+    @MockitoBean
+    private TokenBlacklistService tokenBlacklistService;
+    @MockitoBean
+    private BoundedPasswordEncoder passwordEncoder;
+    @MockitoBean
+    private PasswordPolicy passwordPolicy;
+    @MockitoBean
+    private AuthMapper authMapper;
+
+    @Autowired
+    private AuthService authService;
+    @Autowired
+    private ConnectionHoldTimeDataSource dataSource;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Connections held when each remote call was made and when its response was awaited
+    private final List<Integer> heldDuringRemoteCalls = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry.clear();
+    }
+
+    @Test
+    void loginHoldsNoConnectionAcrossTheUserLookup() {
+        when(usersApi.getUserAuthInfo("alice")).thenAnswer(invocation -> remoteCall(new UserAuthInfo()
+                .username("alice").password("{argon2}hash").roles(List.of("ROLE_USER")).enabled(true)));
+        when(passwordEncoder.matchesAsync("secret", "{argon2}hash")).thenReturn(Mono.just(true));
+        when(jwtTokenProvider.generateAccessToken(eq("alice"), anyList(), anyList(), anyString())).thenReturn("access");
+        when(jwtTokenProvider.generateRefreshToken("alice")).thenReturn("refresh");
+        doAnswer(invocation -> {
+            // The refresh-token write is the only database work of a login; it joins any open transaction
+            Connection connection = DataSourceUtils.getConnection(dataSource);
+            DataSourceUtils.releaseConnection(connection, dataSource);
+            return null;
+        }).when(refreshTokenService).createRefreshToken("alice", "refresh");
+
+        authService.authenticate(LoginRequest.builder().username("alice").password("secret").build()).block();
+
+        assertThat(heldDuringRemoteCalls).containsOnly(0).hasSize(2);
+        assertThat(dataSource.getOpenConnections()).isZero();
+        assertThat(meterRegistry.get("db.connection.hold").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void registerHoldsNoConnectionAcrossUserCreation() {
+        RegisterRequest request = RegisterRequest.builder()
+                .username("bob").password("Str0ng!Passw0rd").email("bob@example.com").build();
+        when(passwordPolicy.validate("Str0ng!Passw0rd")).thenReturn(PasswordPolicy.ValidationResult.success());
+        when(passwordEncoder.encodeAsync("Str0ng!Passw0rd")).thenReturn(Mono.just("{argon2}hash"));
+        when(authMapper.maptoCreateUserRequest(any())).thenReturn(new CreateUserRequest());
+        when(usersApi.createUser(any())).thenAnswer(invocation -> remoteCall(new UserResponse().username("bob")));
+
+        authService.register(request).block();
+
+        assertThat(heldDuringRemoteCalls).containsOnly(0).hasSize(2);
+        assertThat(dataSource.getOpenConnections()).isZero();
+        assertThat(meterRegistry.find("db.connection.hold").timer()).isNull();
+    }
+
+    private <T> Mono<T> remoteCall(T response) {
+        heldDuringRemoteCalls.add(dataSource.getOpenConnections());
+        return Mono.fromSupplier(() -> {
+            heldDuringRemoteCalls.add(dataSource.getOpenConnections());
+            return response;
+        });
+    }
+}
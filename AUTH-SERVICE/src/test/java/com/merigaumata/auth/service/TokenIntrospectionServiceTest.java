@@ -0,0 +1,130 @@
+package com.merigaumata.auth.service;
+
+import com.merigaumata.auth.model.TokenIntrospectionResponse;
+import com.merigaumata.auth.security.TokenVerifier;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * When a verdict may be cached: never for a failed revocation lookup, never across a revocation
+ * message, and active verdicts for no longer than max-ttl.
+ */
+class TokenIntrospectionServiceTest {
+
+    private final TokenVerifier tokenVerifier = mock(TokenVerifier.class);
+    private final TokenBlacklistService tokenBlacklistService = mock(TokenBlacklistService.class);
+
+    private String token;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(tokenVerifier.verify(any())).thenReturn(true);
+        token = token("alice");
+    }
+
+    @Test
+    void cachesActiveVerdict() {
+        TokenIntrospectionService service = service(Duration.ofSeconds(30));
+        when(tokenBlacklistService.areRevoked(anyList())).thenReturn(List.of(false));
+
+        assertThat(service.introspect(token).getActive()).isTrue();
+        assertThat(service.introspect(token).getActive()).isTrue();
+
+        verify(tokenBlacklistService, times(1)).areRevoked(anyList());
+    }
+
+    @Test
+    void failedLookupIsInactiveAndNotCached() {
+        TokenIntrospectionService service = service(Duration.ofSeconds(30));
+        when(tokenBlacklistService.areRevoked(anyList()))
+                .thenThrow(new RedisConnectionFailureException("Redis down"))
+                .thenReturn(List.of(false));
+
+        TokenIntrospectionResponse duringOutage = service.introspect(token);
+        TokenIntrospectionResponse afterOutage = service.introspect(token);
+
+        assertThat(duringOutage.getActive()).isFalse();
+        assertThat(afterOutage.getActive()).isTrue();
+        verify(tokenBlacklistService, times(2)).areRevoked(anyList());
+    }
+
+    @Test
+    void revocationDuringLookupIsNotOverwritten() {
+        TokenIntrospectionService service = service(Duration.ofSeconds(30));
+        // The user is revoked after the lookup read Redis but before its verdict is cached
+        when(tokenBlacklistService.areRevoked(anyList()))
+                .thenAnswer(invocation -> {
+                    service.onMessage(message("user alice 1767268800 1767269701"), null);
+                    return List.of(false);
+                })
+                .thenReturn(List.of(true));
+
+        service.introspect(token);
+
+        assertThat(service.introspect(token).getActive()).isFalse();
+        verify(tokenBlacklistService, times(2)).areRevoked(anyList());
+    }
+
+    @Test
+    void activeVerdictIsKeptNoLongerThanMaxTtl() {
+        TokenIntrospectionService service = service(Duration.ZERO);
+        when(tokenBlacklistService.areRevoked(anyList())).thenReturn(List.of(false));
+
+        service.introspect(token);
+        service.introspect(token);
+
+        verify(tokenBlacklistService, times(2)).areRevoked(anyList());
+    }
+
+    private TokenIntrospectionService service(Duration cacheMaxTtl) {
+        return new TokenIntrospectionService(tokenVerifier, tokenBlacklistService,
+                mock(RedisMessageListenerContainer.class), new SimpleMeterRegistry(),
+                "token-revocations", 100, 1000, cacheMaxTtl);
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage("token-revocations".getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String token(String subject) throws Exception {
+        Instant now = Instant.now();
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .subject(subject)
+                .issuer("auth-service")
+                .audience("api-gateway")
+                .jwtID("jti-" + subject)
+                .issueTime(Date.from(now))
+                .expirationTime(Date.from(now.plusSeconds(900)))
+                .claim("roles", List.of("ROLE_USER"))
+                .build();
+        SignedJWT signedJWT = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.ES256).keyID("test-key").build(), claims);
+        signedJWT.sign(new ECDSASigner(new ECKeyGenerator(Curve.P_256).generate()));
+        return signedJWT.serialize();
+    }
+}
@@ -0,0 +1,87 @@
+package com.merigaumata.common.client;
+
+import io.micrometer.observation.ObservationRegistry;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.loadbalancer.reactive.LoadBalancedExchangeFilterFunction;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * HTTP transport for the generated inter-service clients.
+ * Base URLs name the target's Eureka service id (e.g. http://user-service) and every request is
+ * resolved to one of its live instances by the Spring Cloud load balancer. All clients share one
+ * Reactor Netty pool with keep-alive, so connections to each instance are reused instead of opened
+ * per call, and idle or long-lived ones are evicted in the background so scaled-down instances drop out.
+ * Each service applies {@link ServiceWebClientCustomizer} to its generated ApiClient's builder, which
+ * carries that client's JSON codecs.
+ */
+@Configuration
+public class ServiceClientConfig {
+
+    @Value("${app.service.http.max-connections:200}")
+    private int maxConnections;
+
+    // Callers waiting for a pooled connection beyond this are rejected rather than queued indefinitely
+    @Value("${app.service.http.pending-acquire-max-count:500}")
+    private int pendingAcquireMaxCount;
+
+    @Value("${app.service.http.pending-acquire-timeout:2s}")
+    private Duration pendingAcquireTimeout;
+
+    // Below the servers' keep-alive timeout, so the client never reuses a connection the server is closing
+    @Value("${app.service.http.max-idle-time:30s}")
+    private Duration maxIdleTime;
+
+    @Value("${app.service.http.max-life-time:5m}")
+    private Duration maxLifeTime;
+
+    @Value("${app.service.http.evict-interval:30s}")
+    private Duration evictInterval;
+
+    @Value("${app.service.http.connect-timeout:1s}")
+    private Duration connectTimeout;
+
+    @Value("${app.service.http.response-timeout:3s}")
+    private Duration responseTimeout;
+
+    // Prior-knowledge HTTP/2 over cleartext; the target must run with server.http2.enabled
+    @Value("${app.service.http.h2c:false}")
+    private boolean h2c;
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider serviceConnectionProvider() {
+        return ConnectionProvider.builder("service-clients")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .maxLifeTime(maxLifeTime)
+                .evictInBackground(evictInterval)
+                .metrics(true)
+                .build();
+    }
+
+    /**
+     * Pooled, load-balanced transport for a generated API client's WebClient.Builder.
+     * Requests are observed as http.client.requests, tagged with the operation's URI template.
+     */
+    @Bean
+    public ServiceWebClientCustomizer serviceWebClientCustomizer(ConnectionProvider serviceConnectionProvider,
+                                                                 LoadBalancedExchangeFilterFunction loadBalancerFilter,
+                                                                 ObservationRegistry observationRegistry) {
+        HttpClient httpClient = HttpClient.create(serviceConnectionProvider)
+                .protocol(h2c ? new HttpProtocol[]{HttpProtocol.H2C} : new HttpProtocol[]{HttpProtocol.HTTP11})
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .responseTimeout(responseTimeout);
+        return new ServiceWebClientCustomizer(new ReactorClientHttpConnector(httpClient), loadBalancerFilter,
+                observationRegistry);
+    }
+}
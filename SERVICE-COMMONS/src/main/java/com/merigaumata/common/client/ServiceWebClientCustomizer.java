@@ -0,0 +1,34 @@
+package com.merigaumata.common.client;
+
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.util.function.Consumer;
+
+/**
+ * Points a WebClient.Builder at the shared service connection pool, resolves each request through
+ * the load balancer and observes it; apply with {@code ApiClient.buildWebClientBuilder().apply(customizer)}.
+ */
+public class ServiceWebClientCustomizer implements Consumer<WebClient.Builder> {
+
+    private final ClientHttpConnector connector;
+    private final ExchangeFilterFunction loadBalancerFilter;
+    private final ObservationRegistry observationRegistry;
+
+    public ServiceWebClientCustomizer(ClientHttpConnector connector,
+                                      ExchangeFilterFunction loadBalancerFilter,
+                                      ObservationRegistry observationRegistry) {
+        this.connector = connector;
+        this.loadBalancerFilter = loadBalancerFilter;
+        this.observationRegistry = observationRegistry;
+    }
+
+    @Override
+    public void accept(WebClient.Builder builder) {
+        builder.clientConnector(connector)
+                .filter(loadBalancerFilter)
+                .observationRegistry(observationRegistry);
+    }
+}
@@ -0,0 +1,133 @@
+package com.merigaumata.common.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Properties;
+
+/**
+ * Picks Argon2 parameters for the hardware this node runs on.
+ * Memory and then iterations are raised from the Spring Security 5.8 defaults until a hash takes
+ * about the target latency. The result can be stored as a profile so every node of a class uses
+ * the same parameters without benchmarking on each start. Parameters never go below the defaults;
+ * hashes are self-describing, so hashes made with other parameters keep verifying.
+ */
+@Slf4j
+@Component
+public class Argon2Calibrator {
+
+    private static final int SALT_LENGTH = 16;
+    private static final int HASH_LENGTH = 32;
+    private static final int PARALLELISM = 1;
+    private static final int MIN_MEMORY_KIB = 1 << 14;  // 16MB, as defaultsForSpringSecurity_v5_8
+    private static final int MIN_ITERATIONS = 2;
+    private static final int MAX_ITERATIONS = 10;
+    private static final String SAMPLE_PASSWORD = "calibration-sample-password";
+
+    private final Profile profile;
+
+    public Argon2Calibrator(
+            // off: Spring Security defaults, startup: benchmark on every start,
+            // profile: use the stored profile, benchmarking and storing it if missing
+            @Value("${security.password-hashing.argon2.calibration:off}") String mode,
+            @Value("${security.password-hashing.argon2.profile-path:./keys/argon2-profile.properties}") Path profilePath,
+            @Value("${security.password-hashing.argon2.target-latency:150ms}") Duration targetLatency,
+            @Value("${security.password-hashing.argon2.max-memory:64MB}") DataSize maxMemory) throws IOException {
+        this.profile = switch (mode) {
+            case "off" -> Profile.DEFAULTS;
+            case "startup" -> calibrate(targetLatency, maxMemory);
+            case "profile" -> loadOrCalibrate(profilePath, targetLatency, maxMemory);
+            default -> throw new IllegalArgumentException(
+                    "Unsupported security.password-hashing.argon2.calibration: " + mode);
+        };
+        log.info("Argon2 parameters: memory {}KiB, iterations {}, parallelism {} (calibration {})",
+                profile.memoryKib(), profile.iterations(), profile.parallelism(), mode);
+    }
+
+    public Profile getProfile() {
+        return profile;
+    }
+
+    /**
+     * Encoder for new hashes; reports hashes made with weaker parameters as needing an upgrade
+     */
+    public Argon2PasswordEncoder encoder() {
+        return profile.encoder();
+    }
+
+    private static Profile loadOrCalibrate(Path profilePath, Duration targetLatency, DataSize maxMemory)
+            throws IOException {
+        if (Files.exists(profilePath)) {
+            Properties properties = new Properties();
+            try (Reader reader = Files.newBufferedReader(profilePath)) {
+                properties.load(reader);
+            }
+            return new Profile(
+                    Integer.parseInt(properties.getProperty("parallelism")),
+                    Math.max(MIN_MEMORY_KIB, Integer.parseInt(properties.getProperty("memory-kib"))),
+                    Math.max(MIN_ITERATIONS, Integer.parseInt(properties.getProperty("iterations"))));
+        }
+        Profile calibrated = calibrate(targetLatency, maxMemory);
+        Properties properties = new Properties();
+        properties.setProperty("parallelism", Integer.toString(calibrated.parallelism()));
+        properties.setProperty("memory-kib", Integer.toString(calibrated.memoryKib()));
+        properties.setProperty("iterations", Integer.toString(calibrated.iterations()));
+        Files.createDirectories(profilePath.toAbsolutePath().getParent());
+        try (Writer writer = Files.newBufferedWriter(profilePath)) {
+            properties.store(writer, "Argon2 calibration, target " + targetLatency);
+        }
+        log.info("Stored Argon2 calibration profile {}", profilePath);
+        return calibrated;
+    }
+
+    private static Profile calibrate(Duration targetLatency, DataSize maxMemory) {
+        long target = targetLatency.toNanos();
+        int maxMemoryKib = (int) Math.max(MIN_MEMORY_KIB, maxMemory.toKilobytes());
+
+        // Cost grows linearly in memory x iterations; raise memory first, it is what hurts GPU attackers
+        Profile profile = Profile.DEFAULTS;
+        long elapsed = measure(profile);
+        while (elapsed * 2 <= target && profile.memoryKib() * 2 <= maxMemoryKib) {
+            profile = new Profile(PARALLELISM, profile.memoryKib() * 2, profile.iterations());
+            elapsed = measure(profile);
+        }
+        while (elapsed * (profile.iterations() + 1) / profile.iterations() <= target
+                && profile.iterations() < MAX_ITERATIONS) {
+            profile = new Profile(PARALLELISM, profile.memoryKib(), profile.iterations() + 1);
+            elapsed = measure(profile);
+        }
+        log.info("Argon2 calibrated to {}ms per hash (target {}ms)",
+                Duration.ofNanos(elapsed).toMillis(), targetLatency.toMillis());
+        return profile;
+    }
+
+    private static long measure(Profile profile) {
+        Argon2PasswordEncoder encoder = profile.encoder();
+        encoder.encode(SAMPLE_PASSWORD); // warm-up
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            encoder.encode(SAMPLE_PASSWORD);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    public record Profile(int parallelism, int memoryKib, int iterations) {
+
+        static final Profile DEFAULTS = new Profile(PARALLELISM, MIN_MEMORY_KIB, MIN_ITERATIONS);
+
+        Argon2PasswordEncoder encoder() {
+            return new Argon2PasswordEncoder(SALT_LENGTH, HASH_LENGTH, parallelism, memoryKib, iterations);
+        }
+    }
+}
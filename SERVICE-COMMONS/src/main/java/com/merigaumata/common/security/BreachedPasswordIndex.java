@@ -0,0 +1,170 @@
+package com.merigaumata.common.security;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Objects;
+
+/**
+ * Offline lookup of known-breached passwords.
+ * The corpus is a file of raw 20-byte SHA-1 digests sorted ascending (e.g. the HIBP "ordered by hash"
+ * list, hex-decoded). It is memory-mapped rather than loaded, so a multi-GB corpus stays off the heap
+ * and in the page cache, and searched by interpolation, which needs only a few probes because SHA-1
+ * digests are uniformly distributed. Replace the file by atomic rename to roll out a new corpus;
+ * it is picked up on the next check without a restart.
+ */
+@Slf4j
+@Component
+public class BreachedPasswordIndex {
+
+    private static final int RECORD_SIZE = 20;
+    // Records per mapped segment; a single mapping is limited to 2GB
+    private static final long SEGMENT_RECORDS = Integer.MAX_VALUE / RECORD_SIZE;
+    private static final int INTERPOLATION_PROBES = 8;
+
+    // Empty disables the check
+    @Value("${security.breached-passwords.path:}")
+    private String path;
+
+    private volatile Corpus corpus;
+
+    @PostConstruct
+    void initialize() {
+        refresh();
+        if (corpus == null && path != null && !path.isBlank()) {
+            log.warn("Breached password corpus {} not available, check disabled until it is", path);
+        }
+    }
+
+    public boolean isBreached(String password) {
+        Corpus current = corpus;
+        if (current == null) {
+            return false;
+        }
+        return current.contains(sha1(password));
+    }
+
+    @Scheduled(fixedDelayString = "${security.breached-passwords.check-interval:PT1M}",
+            initialDelayString = "${security.breached-passwords.check-interval:PT1M}")
+    public void refresh() {
+        if (path == null || path.isBlank()) {
+            return;
+        }
+        Path file = Path.of(path);
+        try {
+            if (Files.notExists(file)) {
+                if (corpus != null) {
+                    log.warn("Breached password corpus {} removed, check disabled", file);
+                }
+                corpus = null;
+                return;
+            }
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            Corpus current = corpus;
+            if (current != null && Objects.equals(current.fileKey(), attributes.fileKey())
+                    && current.modifiedTime() == attributes.lastModifiedTime().toMillis()) {
+                return;
+            }
+            corpus = Corpus.map(file, attributes);
+            log.info("Loaded breached password corpus {} with {} hashes", file, corpus.size());
+        } catch (Exception e) {
+            // Keep serving the previous corpus
+            log.error("Failed to load breached password corpus {}", file, e);
+        }
+    }
+
+    private static byte[] sha1(String password) {
+        try {
+            return MessageDigest.getInstance("SHA-1").digest(password.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 not available", e);
+        }
+    }
+
+    private record Corpus(MappedByteBuffer[] segments, long size, Object fileKey, long modifiedTime) {
+
+        static Corpus map(Path file, BasicFileAttributes attributes) throws IOException {
+            long bytes = attributes.size();
+            if (bytes % RECORD_SIZE != 0) {
+                throw new IOException("Corpus size " + bytes + " is not a multiple of " + RECORD_SIZE);
+            }
+            long size = bytes / RECORD_SIZE;
+            MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((size + SEGMENT_RECORDS - 1) / SEGMENT_RECORDS)];
+            // The mappings stay valid after the channel is closed
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                for (int i = 0; i < segments.length; i++) {
+                    long first = i * SEGMENT_RECORDS;
+                    long records = Math.min(SEGMENT_RECORDS, size - first);
+                    segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, first * RECORD_SIZE, records * RECORD_SIZE);
+                }
+            }
+            return new Corpus(segments, size, attributes.fileKey(), attributes.lastModifiedTime().toMillis());
+        }
+
+        boolean contains(byte[] digest) {
+            ByteBuffer target = ByteBuffer.wrap(digest);
+            long targetPrefix = target.getLong(0);
+            long low = 0;
+            long high = size - 1;
+
+            // Interpolation on the leading 64 bits; falls back to binary search if the data is skewed
+            for (int probe = 0; low <= high; probe++) {
+                long mid;
+                if (probe < INTERPOLATION_PROBES) {
+                    double lowKey = unsigned(prefix(low));
+                    double highKey = unsigned(prefix(high));
+                    double fraction = highKey > lowKey ? (unsigned(targetPrefix) - lowKey) / (highKey - lowKey) : 0.5;
+                    mid = low + (long) (Math.min(1.0, Math.max(0.0, fraction)) * (high - low));
+                } else {
+                    mid = (low + high) >>> 1;
+                }
+                int comparison = compare(mid, target);
+                if (comparison == 0) {
+                    return true;
+                }
+                if (comparison < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return false;
+        }
+
+        private long prefix(long index) {
+            return segments[(int) (index / SEGMENT_RECORDS)].getLong((int) (index % SEGMENT_RECORDS) * RECORD_SIZE);
+        }
+
+        private int compare(long index, ByteBuffer target) {
+            MappedByteBuffer segment = segments[(int) (index / SEGMENT_RECORDS)];
+            int offset = (int) (index % SEGMENT_RECORDS) * RECORD_SIZE;
+            int comparison = Long.compareUnsigned(segment.getLong(offset), target.getLong(0));
+            if (comparison == 0) {
+                comparison = Long.compareUnsigned(segment.getLong(offset + 8), target.getLong(8));
+            }
+            if (comparison == 0) {
+                comparison = Integer.compareUnsigned(segment.getInt(offset + 16), target.getInt(16));
+            }
+            return comparison;
+        }
+
+        private static double unsigned(long value) {
+            double result = (double) (value >>> 1) * 2.0;
+            return result + (value & 1);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.merigaumata.common.security;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Calibration modes. Targets are kept below the cost of a default hash so nothing is benchmarked
+ * beyond the Spring Security defaults.
+ */
+class Argon2CalibratorTest {
+
+    private static final Duration BELOW_DEFAULT_COST = Duration.ofNanos(1);
+    private static final DataSize MAX_MEMORY = DataSize.ofMegabytes(64);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void offUsesTheSpringSecurityDefaults() throws Exception {
+        Argon2Calibrator calibrator = calibrator("off", directory.resolve("unused.properties"));
+
+        assertThat(calibrator.getProfile()).isEqualTo(Argon2Calibrator.Profile.DEFAULTS);
+    }
+
+    @Test
+    void startupNeverGoesBelowTheDefaults() throws Exception {
+        Argon2Calibrator calibrator = calibrator("startup", directory.resolve("unused.properties"));
+
+        assertThat(calibrator.getProfile()).isEqualTo(Argon2Calibrator.Profile.DEFAULTS);
+        assertThat(directory.resolve("unused.properties")).doesNotExist();
+    }
+
+    @Test
+    void profileCalibratesAndStoresWhenMissing() throws Exception {
+        Path profilePath = directory.resolve("keys/argon2-profile.properties");
+
+        Argon2Calibrator calibrator = calibrator("profile", profilePath);
+
+        assertThat(profilePath).exists();
+        Properties stored = new Properties();
+        try (Reader reader = Files.newBufferedReader(profilePath)) {
+            stored.load(reader);
+        }
+        Argon2Calibrator.Profile profile = calibrator.getProfile();
+        assertThat(stored.getProperty("parallelism")).isEqualTo(Integer.toString(profile.parallelism()));
+        assertThat(stored.getProperty("memory-kib")).isEqualTo(Integer.toString(profile.memoryKib()));
+        assertThat(stored.getProperty("iterations")).isEqualTo(Integer.toString(profile.iterations()));
+    }
+
+    @Test
+    void profileUsesTheStoredParameters() throws Exception {
+        Path profilePath = writeProfile(1, 32768, 3);
+
+        Argon2Calibrator calibrator = calibrator("profile", profilePath);
+
+        assertThat(calibrator.getProfile()).isEqualTo(new Argon2Calibrator.Profile(1, 32768, 3));
+    }
+
+    @Test
+    void storedParametersBelowTheDefaultsAreRaised() throws Exception {
+        Path profilePath = writeProfile(1, 1024, 1);
+
+        Argon2Calibrator calibrator = calibrator("profile", profilePath);
+
+        assertThat(calibrator.getProfile()).isEqualTo(Argon2Calibrator.Profile.DEFAULTS);
+    }
+
+    @Test
+    void hashesWithWeakerParametersNeedAnUpgrade() throws Exception {
+        String defaultHash = Argon2Calibrator.Profile.DEFAULTS.encoder().encode("secret");
+
+        Argon2Calibrator calibrator = calibrator("profile", writeProfile(1, 32768, 2));
+
+        assertThat(calibrator.encoder().matches("secret", defaultHash)).isTrue();
+        assertThat(calibrator.encoder().upgradeEncoding(defaultHash)).isTrue();
+        assertThat(calibrator.encoder().upgradeEncoding(calibrator.encoder().encode("secret"))).isFalse();
+    }
+
+    @Test
+    void rejectsUnknownMode() {
+        assertThatThrownBy(() -> calibrator("always", directory.resolve("unused.properties")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("always");
+    }
+
+    private Argon2Calibrator calibrator(String mode, Path profilePath) throws Exception {
+        return new Argon2Calibrator(mode, profilePath, BELOW_DEFAULT_COST, MAX_MEMORY);
+    }
+
+    private Path writeProfile(int parallelism, int memoryKib, int iterations) throws Exception {
+        Path profilePath = directory.resolve("argon2-profile.properties");
+        Files.writeString(profilePath, "parallelism=" + parallelism + "\nmemory-kib=" + memoryKib
+                + "\niterations=" + iterations + "\n");
+        return profilePath;
+    }
+}
@@ -0,0 +1,153 @@
+package com.merigaumata.common.security;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Lookups over small generated corpora of sorted 20-byte SHA-1 records.
+ */
+class BreachedPasswordIndexTest {
+
+    private static final int CORPUS_SIZE = 1000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void findsTheFirstAndLastRecord() throws Exception {
+        List<String> passwords = passwordsBySha1(CORPUS_SIZE);
+        BreachedPasswordIndex index = index(corpus(passwords));
+
+        assertThat(index.isBreached(passwords.get(0))).isTrue();
+        assertThat(index.isBreached(passwords.get(CORPUS_SIZE - 1))).isTrue();
+    }
+
+    @Test
+    void findsEveryRecord() throws Exception {
+        List<String> passwords = passwordsBySha1(CORPUS_SIZE);
+        BreachedPasswordIndex index = index(corpus(passwords));
+
+        assertThat(passwords).allMatch(index::isBreached);
+    }
+
+    @Test
+    void missesTargetsOutsideTheCorpusRange() throws Exception {
+        List<String> passwords = passwordsBySha1(CORPUS_SIZE);
+        // The smallest and largest digests are left out, so they fall below the first and above the last record
+        BreachedPasswordIndex index = index(corpus(passwords.subList(1, CORPUS_SIZE - 1)));
+
+        assertThat(index.isBreached(passwords.get(0))).isFalse();
+        assertThat(index.isBreached(passwords.get(CORPUS_SIZE - 1))).isFalse();
+        assertThat(index.isBreached(passwords.get(1))).isTrue();
+        assertThat(index.isBreached(passwords.get(CORPUS_SIZE - 2))).isTrue();
+    }
+
+    @Test
+    void missesTargetBetweenTwoNeighbours() throws Exception {
+        List<String> passwords = passwordsBySha1(CORPUS_SIZE);
+        String missing = passwords.get(CORPUS_SIZE / 2);
+        List<String> corpus = new ArrayList<>(passwords);
+        corpus.remove(missing);
+        BreachedPasswordIndex index = index(corpus(corpus));
+
+        assertThat(index.isBreached(missing)).isFalse();
+        assertThat(index.isBreached(passwords.get(CORPUS_SIZE / 2 - 1))).isTrue();
+        assertThat(index.isBreached(passwords.get(CORPUS_SIZE / 2 + 1))).isTrue();
+    }
+
+    @Test
+    void fallsBackToBinarySearchOnSkewedCorpus() throws Exception {
+        // A dense run of records just below the target between 0 and the largest key: every interpolation
+        // probe lands one record further, so the lookup only finishes through the binary-search fallback
+        byte[] target = sha1("skewed-target");
+        long targetPrefix = ByteBuffer.wrap(target).getLong();
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        records.write(new byte[20]);
+        for (long i = CORPUS_SIZE; i > 0; i--) {
+            records.write(ByteBuffer.allocate(20).putLong(targetPrefix - i).array());
+        }
+        records.write(target);
+        byte[] last = new byte[20];
+        Arrays.fill(last, (byte) 0xFF);
+        records.write(last);
+        BreachedPasswordIndex index = index(write(records.toByteArray()));
+
+        assertThat(index.isBreached("skewed-target")).isTrue();
+        assertThat(index.isBreached("not-in-the-corpus")).isFalse();
+    }
+
+    @Test
+    void rejectsCorpusThatIsNotWholeRecords() throws Exception {
+        List<String> passwords = passwordsBySha1(2);
+        byte[] records = corpusBytes(passwords);
+        BreachedPasswordIndex index = index(write(Arrays.copyOf(records, records.length + 1)));
+
+        // Not loaded, so the check stays disabled
+        assertThat(index.isBreached(passwords.get(0))).isFalse();
+    }
+
+    @Test
+    void emptyPathDisablesTheCheck() {
+        BreachedPasswordIndex index = new BreachedPasswordIndex();
+        ReflectionTestUtils.setField(index, "path", "");
+        index.initialize();
+
+        assertThat(index.isBreached("password")).isFalse();
+    }
+
+    private BreachedPasswordIndex index(Path corpus) {
+        BreachedPasswordIndex index = new BreachedPasswordIndex();
+        ReflectionTestUtils.setField(index, "path", corpus.toString());
+        index.initialize();
+        return index;
+    }
+
+    private Path corpus(List<String> passwords) throws Exception {
+        return write(corpusBytes(passwords));
+    }
+
+    private Path write(byte[] records) throws Exception {
+        Path file = directory.resolve("breached.bin");
+        Files.write(file, records);
+        return file;
+    }
+
+    private static byte[] corpusBytes(List<String> passwords) throws Exception {
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        for (String password : passwords) {
+            records.write(sha1(password));
+        }
+        return records.toByteArray();
+    }
+
+    // Passwords ordered by their digest, as the corpus is
+    private static List<String> passwordsBySha1(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> "password-" + i)
+                .sorted(Comparator.comparing(BreachedPasswordIndexTest::sha1, Arrays::compareUnsigned))
+                .toList();
+    }
+
+    private static byte[] sha1(String password) {
+        try {
+            return MessageDigest.getInstance("SHA-1").digest(password.getBytes(StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -2,27 +2,39 @@ package com.merigaumata.user.config;
 
 import com.merigaumata.auth.ApiClient;
 import com.merigaumata.auth.api.DiscoveryApi;
+import com.merigaumata.auth.api.InternalApi;
+import com.merigaumata.common.client.ServiceClientConfig;
+import com.merigaumata.common.client.ServiceWebClientCustomizer;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 import org.springframework.stereotype.Component;
 
 @Configuration
 @Component
+@Import(ServiceClientConfig.class)
 public class ApiConfig {
 
     @NotBlank
     @NotNull
-//    @Value("${app.service.apis.auth-url}")
-    @Value("http://localhost:8081")
+    // Eureka service id, resolved per request by the load balancer
+    @Value("${app.service.apis.auth-url:http://auth-service}")
     private String userServiceUrl;
 
     @Bean
-    public DiscoveryApi userServiceApi(){
-        ApiClient authApi = new ApiClient();
+    public DiscoveryApi userServiceApi(ServiceWebClientCustomizer serviceWebClientCustomizer){
+        ApiClient authApi = new ApiClient(ApiClient.buildWebClientBuilder().apply(serviceWebClientCustomizer).build());
         authApi.setBasePath(userServiceUrl);
         return new DiscoveryApi(authApi);
     }
+
+    @Bean
+    public InternalApi authInternalApi(ServiceWebClientCustomizer serviceWebClientCustomizer){
+        ApiClient authApi = new ApiClient(ApiClient.buildWebClientBuilder().apply(serviceWebClientCustomizer).build());
+        authApi.setBasePath(userServiceUrl);
+        return new InternalApi(authApi);
+    }
 }
\ No newline at end of file
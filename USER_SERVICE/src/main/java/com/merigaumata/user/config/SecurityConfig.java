@@ -1,26 +1,36 @@
 package com.merigaumata.user.config;
 
+import com.merigaumata.common.security.Argon2Calibrator;
+import com.merigaumata.common.security.BreachedPasswordIndex;
 import com.merigaumata.user.filter.JwtAuthenticationFilter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import java.util.Map;
+
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity
+@Import({Argon2Calibrator.class, BreachedPasswordIndex.class})
 @RequiredArgsConstructor
 public class SecurityConfig {
 
+    private static final String ARGON2 = "argon2";
+
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final Argon2Calibrator argon2Calibrator;
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
@@ -40,14 +50,19 @@ public class SecurityConfig {
 
                         // ===== SERVICE-TO-SERVICE ENDPOINTS =====
                         // These are called ONLY by other microservices (AuthService)
-                        // Require ROLE_SERVICE from service JWT token
+                        // Require ROLE_SERVICE from service JWT token (Bearer, verified against the JWKS)
+                        // Paths as mapped by the generated UsersApi interface (no /api prefix)
 
                         // User creation endpoint - called during registration
-                        .requestMatchers(HttpMethod.POST, "/api/users")
+                        .requestMatchers(HttpMethod.POST, "/users/")
                         .hasRole("SERVICE")
 
                         // User lookup by username - called during login
-                        .requestMatchers(HttpMethod.GET, "/api/users/username/**")
+                        .requestMatchers(HttpMethod.GET, "/users/username/**")
+                        .hasRole("SERVICE")
+
+                        // Auth info lookup and password rehash - called on login
+                        .requestMatchers("/users/internal/**")
                         .hasRole("SERVICE")
 
                         // ===== USER ENDPOINTS =====
@@ -62,6 +77,10 @@ public class SecurityConfig {
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return Argon2PasswordEncoder.defaultsForSpringSecurity_v5_8();
+        // New hashes use the calibrated parameters; unprefixed hashes predate calibration
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(ARGON2,
+                Map.of(ARGON2, argon2Calibrator.encoder()));
+        encoder.setDefaultPasswordEncoderForMatches(Argon2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+        return encoder;
     }
 }
\ No newline at end of file
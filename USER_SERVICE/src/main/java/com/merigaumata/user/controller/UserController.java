@@ -72,6 +72,19 @@ public class UserController implements UsersApi {
         return ResponseEntity.ok(response);
     }
 
+    @Override
+    @PreAuthorize("hasRole('ROLE_SERVICE')")
+    public ResponseEntity<UserAuthInfo> getUserAuthInfo(String username) {
+        return ResponseEntity.ok(userService.getUserAuthInfo(username));
+    }
+
+    @Override
+    @PreAuthorize("hasRole('ROLE_SERVICE')")
+    public ResponseEntity<Void> updatePasswordHash(String username, UpdatePasswordHashRequest updatePasswordHashRequest) {
+        userService.updatePasswordHash(username, updatePasswordHashRequest);
+        return ResponseEntity.noContent().build();
+    }
+
     @Override
     @PreAuthorize("hasRole('ROLE_USER')")
     public ResponseEntity<UserResponse> updateUser(String id, String requesterId, UpdateUserRequest updateUserRequest) {
@@ -1,5 +1,6 @@
 package com.merigaumata.user.filter;
 
+import com.merigaumata.user.service.InternalAssertionVerifier;
 import com.merigaumata.user.service.JwtValidationService;
 import com.nimbusds.jwt.JWTClaimsSet;
 import jakarta.servlet.FilterChain;
@@ -14,7 +15,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.Arrays;
+import java.text.ParseException;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -23,9 +24,12 @@ import java.util.stream.Collectors;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtValidationService jwtValidationService;
+    private final InternalAssertionVerifier internalAssertionVerifier;
 
-    public JwtAuthenticationFilter(JwtValidationService jwtValidationService) {
+    public JwtAuthenticationFilter(JwtValidationService jwtValidationService,
+                                   InternalAssertionVerifier internalAssertionVerifier) {
         this.jwtValidationService = jwtValidationService;
+        this.internalAssertionVerifier = internalAssertionVerifier;
     }
 
     @Override
@@ -34,62 +38,64 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             HttpServletResponse response,
             FilterChain filterChain) throws ServletException, IOException {
 
+        String internalAssertion = request.getHeader(InternalAssertionVerifier.HEADER);
         String authHeader = request.getHeader("Authorization");
 
         // ===========================================================
-        // OPTION 1: JWT Token Authentication (from Gateway or Service)
+        // OPTION 1: Internal assertion minted by the Gateway
         // ===========================================================
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            String token = authHeader.substring(7);
-
+        // The gateway has already verified the external token; the HMAC check replaces a second
+        // public-key verification. The plain X-User-* headers are never trusted on their own.
+        if (internalAssertion != null) {
             try {
-                // Validate JWT token
-                JWTClaimsSet claims = jwtValidationService.validateToken(token);
-
-                String userId = claims.getSubject();
-                List<String> roles = (List<String>) claims.getClaim("roles");
-
-                log.debug("Authenticated via JWT: userId={}, roles={}", userId, roles);
+                JWTClaimsSet claims = internalAssertionVerifier.verify(internalAssertion);
+                String headerUserId = request.getHeader("X-User-Id");
+                if (headerUserId != null && !headerUserId.equals(claims.getSubject())) {
+                    throw new RuntimeException("X-User-Id does not match the internal assertion subject");
+                }
 
-                // Create Spring Security authentication
-                List<SimpleGrantedAuthority> authorities = roles.stream()
-                        .map(SimpleGrantedAuthority::new)
-                        .collect(Collectors.toList());
-
-                UsernamePasswordAuthenticationToken auth =
-                        new UsernamePasswordAuthenticationToken(userId, null, authorities);
-
-                SecurityContextHolder.getContext().setAuthentication(auth);
+                log.debug("Authenticated via internal assertion: userId={}", claims.getSubject());
+                authenticate(claims);
 
             } catch (Exception e) {
-                log.error("JWT validation failed: {}", e.getMessage());
+                log.error("Internal assertion validation failed: {}", e.getMessage());
                 // Don't throw - let Spring Security handle unauthorized
             }
         }
 
         // ===========================================================
-        // OPTION 2: Header-Based Authentication (from Gateway only)
+        // OPTION 2: JWT Token Authentication (direct service calls)
         // ===========================================================
-        else if (SecurityContextHolder.getContext().getAuthentication() == null) {
-            String userId = request.getHeader("X-User-Id");
-            String rolesHeader = request.getHeader("X-User-Roles");
-
-            if (userId != null && rolesHeader != null) {
-                log.debug("Authenticated via headers: userId={}, roles={}", userId, rolesHeader);
+        else if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            String token = authHeader.substring(7);
 
-                List<SimpleGrantedAuthority> authorities =
-                        Arrays.stream(rolesHeader.split(","))
-                                .map(String::trim)
-                                .map(SimpleGrantedAuthority::new)
-                                .collect(Collectors.toList());
+            try {
+                // Validate JWT token
+                JWTClaimsSet claims = jwtValidationService.validateToken(token);
 
-                UsernamePasswordAuthenticationToken auth =
-                        new UsernamePasswordAuthenticationToken(userId, null, authorities);
+                log.debug("Authenticated via JWT: userId={}", claims.getSubject());
+                authenticate(claims);
 
-                SecurityContextHolder.getContext().setAuthentication(auth);
+            } catch (Exception e) {
+                log.error("JWT validation failed: {}", e.getMessage());
+                // Don't throw - let Spring Security handle unauthorized
             }
         }
 
         filterChain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    private void authenticate(JWTClaimsSet claims) throws ParseException {
+        List<String> roles = claims.getStringListClaim("roles");
+
+        // Create Spring Security authentication
+        List<SimpleGrantedAuthority> authorities = roles == null ? List.of() : roles.stream()
+                .map(SimpleGrantedAuthority::new)
+                .collect(Collectors.toList());
+
+        UsernamePasswordAuthenticationToken auth =
+                new UsernamePasswordAuthenticationToken(claims.getSubject(), null, authorities);
+
+        SecurityContextHolder.getContext().setAuthentication(auth);
+    }
+}
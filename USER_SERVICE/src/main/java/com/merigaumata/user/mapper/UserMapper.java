@@ -2,6 +2,7 @@ package com.merigaumata.user.mapper;
 
 import com.merigaumata.user.entity.User;
 import com.merigaumata.user.model.*;
+import com.merigaumata.user.repository.UserAuthProjection;
 import org.mapstruct.*;
 import org.springframework.data.domain.Page;
 
@@ -76,6 +77,19 @@ public interface UserMapper {
     @Mapping(target = "enabled", source = "enabled")
     UserAuthInfo toAuthInfo(User user);
 
+    /**
+     * Map the auth lookup projection to UserAuthInfo, splitting the aggregated roles
+     */
+    default UserAuthInfo toAuthInfo(UserAuthProjection projection) {
+        UserAuthInfo authInfo = new UserAuthInfo();
+        authInfo.setId(projection.getId());
+        authInfo.setUsername(projection.getUsername());
+        authInfo.setPassword(projection.getPassword());
+        authInfo.setEnabled(projection.getEnabled());
+        authInfo.setRoles(projection.getRoles() == null ? List.of() : List.of(projection.getRoles().split(",")));
+        return authInfo;
+    }
+
     @Mapping(target = "totalElements", source = "totalElements")
     @Mapping(target = "numberOfElements", source = "numberOfElements")
     PageOfAuditLogResponse mapToPageResponse(Page<AuditLogResponse> page);
@@ -0,0 +1,17 @@
+package com.merigaumata.user.repository;
+
+/**
+ * Columns needed to authenticate a user; roles are comma-separated, aggregated by the query
+ */
+public interface UserAuthProjection {
+
+    String getId();
+
+    String getUsername();
+
+    String getPassword();
+
+    Boolean getEnabled();
+
+    String getRoles();
+}
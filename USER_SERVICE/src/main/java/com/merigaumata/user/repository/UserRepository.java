@@ -2,6 +2,7 @@ package com.merigaumata.user.repository;
 
 import com.merigaumata.user.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
@@ -20,4 +21,24 @@ public interface UserRepository extends JpaRepository<User, String> {
 
     @Query("SELECT u FROM User u WHERE u.username = :username AND u.enabled = true")
     Optional<User> findActiveUserByUsername(String username);
+
+    /**
+     * Auth lookup in one round trip: a unique-index probe on username plus the user_roles rows,
+     * aggregated in SQL and read as a projection, so no entity or roles collection is hydrated
+     */
+    @Query(value = """
+            SELECT u.id AS id, u.username AS username, u.password AS password, u.enabled AS enabled,
+                   string_agg(r.role, ',') AS roles
+            FROM users u
+            LEFT JOIN user_roles r ON r.user_id = u.id
+            WHERE u.username = :username
+            GROUP BY u.id""", nativeQuery = true)
+    Optional<UserAuthProjection> findAuthInfoByUsername(String username);
+
+    /**
+     * Replaces the password hash only if it is still the one the caller verified against
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.password = :newHash WHERE u.username = :username AND u.password = :currentHash")
+    int replacePasswordHash(String username, String currentHash, String newHash);
 }
\ No newline at end of file
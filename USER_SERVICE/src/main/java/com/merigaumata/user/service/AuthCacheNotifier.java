@@ -0,0 +1,45 @@
+package com.merigaumata.user.service;
+
+import com.merigaumata.auth.api.InternalApi;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Tells the auth service to drop its cached auth info of a user once a change is committed, or to
+ * revoke all of the user's sessions (which drops the cached auth info too).
+ * Fire-and-forget: if an eviction fails, the auth service's cache TTL bounds the staleness.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AuthCacheNotifier {
+
+    private final InternalApi internalApi;
+    private final AuthServiceTokenClient authServiceTokenClient;
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onUserAuthInfoChanged(UserAuthInfoChangedEvent event) {
+        if (event.revokeSessions()) {
+            // Unlike an eviction, a lost revocation leaves tokens valid, so it is retried. Every attempt
+            // names the same change (committed now), so a retry after a lost response is not applied twice.
+            long changedAt = Instant.now().getEpochSecond();
+            authServiceTokenClient.getAuthorization()
+                    .flatMap(authorization -> internalApi.revokeUserSessions(event.username(), changedAt, authorization))
+                    .retryWhen(Retry.backoff(3, Duration.ofMillis(200)))
+                    .subscribe(null, e -> log.error("Failed to revoke sessions of {} in auth service: {}",
+                            event.username(), e.getMessage()));
+            return;
+        }
+        authServiceTokenClient.getAuthorization()
+                .flatMap(authorization -> internalApi.evictUserAuthInfo(event.username(), authorization))
+                .subscribe(null, e -> log.warn("Failed to evict auth info of {} from auth service: {}",
+                        event.username(), e.getMessage()));
+    }
+}
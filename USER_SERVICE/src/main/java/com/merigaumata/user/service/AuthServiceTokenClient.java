@@ -0,0 +1,45 @@
+package com.merigaumata.user.service;
+
+import com.merigaumata.auth.api.InternalApi;
+import com.merigaumata.auth.model.ServiceTokenResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Service JWT for calls to the auth service's internal endpoints. The shared service secret is
+ * exchanged for a token once. The token is then reused until shortly before it expires, and
+ * concurrent callers share a single exchange. A failed exchange is not cached.
+ */
+@Slf4j
+@Component
+public class AuthServiceTokenClient {
+
+    private final Mono<String> authorization;
+
+    public AuthServiceTokenClient(InternalApi internalApi,
+                                  @Value("${service.secret:}") String serviceSecret,
+                                  @Value("${service.token.renew-before:60s}") Duration renewBefore) {
+        this.authorization = Mono.defer(() -> internalApi.issueServiceToken(serviceSecret))
+                .doOnNext(response -> log.debug("Obtained service token from auth service, valid for {}s",
+                        response.getExpiresIn()))
+                .cache(response -> cacheFor(response, renewBefore), error -> Duration.ZERO, () -> Duration.ZERO)
+                .map(response -> "Bearer " + response.getAccessToken());
+    }
+
+    /**
+     * Authorization header value for an internal auth-service call
+     */
+    public Mono<String> getAuthorization() {
+        return authorization;
+    }
+
+    private static Duration cacheFor(ServiceTokenResponse response, Duration renewBefore) {
+        Duration validity = Duration.ofSeconds(response.getExpiresIn() == null ? 0 : response.getExpiresIn());
+        Duration ttl = validity.minus(renewBefore);
+        return ttl.isNegative() ? Duration.ZERO : ttl;
+    }
+}
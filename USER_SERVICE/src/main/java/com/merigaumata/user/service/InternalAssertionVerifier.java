@@ -0,0 +1,55 @@
+package com.merigaumata.user.service;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.MACVerifier;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Date;
+
+/**
+ * Verifies the X-Internal-Auth assertion minted by the API gateway after it has validated the
+ * caller's access token. The HMAC check costs microseconds, so requests routed through the gateway
+ * skip the public-key verification of the external token.
+ */
+@Component
+public class InternalAssertionVerifier {
+
+    public static final String HEADER = "X-Internal-Auth";
+
+    private static final String ISSUER = "api-gateway";
+    private static final String AUDIENCE = "internal";
+
+    private final JWSVerifier verifier;
+
+    public InternalAssertionVerifier(@Value("${internal-auth.secret}") String secret) throws JOSEException {
+        this.verifier = new MACVerifier(secret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Returns the verified assertion claims, or throws if the assertion is forged, expired or malformed */
+    public JWTClaimsSet verify(String assertion) throws Exception {
+        SignedJWT signedJWT = SignedJWT.parse(assertion);
+        if (!JWSAlgorithm.HS256.equals(signedJWT.getHeader().getAlgorithm())) {
+            throw new RuntimeException("Unexpected internal assertion algorithm");
+        }
+        if (!signedJWT.verify(verifier)) {
+            throw new RuntimeException("Invalid internal assertion signature");
+        }
+
+        JWTClaimsSet claims = signedJWT.getJWTClaimsSet();
+        Date expirationTime = claims.getExpirationTime();
+        if (expirationTime == null || expirationTime.before(Date.from(Instant.now()))) {
+            throw new RuntimeException("Internal assertion expired");
+        }
+        if (!ISSUER.equals(claims.getIssuer()) || !claims.getAudience().contains(AUDIENCE)) {
+            throw new RuntimeException("Internal assertion issuer or audience mismatch");
+        }
+        return claims;
+    }
+}
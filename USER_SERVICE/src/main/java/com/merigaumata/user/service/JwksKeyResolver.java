@@ -0,0 +1,163 @@
+package com.merigaumata.user.service;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.crypto.Ed25519Verifier;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.OctetKeyPair;
+import com.nimbusds.jose.jwk.RSAKey;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Resolves JWT signing keys published by AuthService to prebuilt verifiers.
+ * The key set is revalidated in the background with a conditional GET, so a request only
+ * waits on AuthService when it carries a kid that is not cached yet (e.g. right after rotation).
+ * If AuthService is unreachable the last good keys keep being served.
+ */
+@Slf4j
+@Component
+public class JwksKeyResolver {
+
+    private final RestClient restClient;
+    private final String jwksUri;
+    private final Duration minRefetchInterval;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter refreshFailures;
+
+    private volatile KeySnapshot snapshot = KeySnapshot.EMPTY;
+
+    public JwksKeyResolver(MeterRegistry meterRegistry,
+                           @Value("${auth.jwks-uri:http://auth-service:8081/auth/.well-known/jwks.json}") String jwksUri,
+                           @Value("${auth.jwks.min-refetch-interval:10s}") Duration minRefetchInterval,
+                           @Value("${auth.jwks.fetch-timeout:3s}") Duration fetchTimeout) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(fetchTimeout);
+        requestFactory.setReadTimeout(fetchTimeout);
+        this.restClient = RestClient.builder().requestFactory(requestFactory).build();
+        this.jwksUri = jwksUri;
+        this.minRefetchInterval = minRefetchInterval;
+
+        this.hits = Counter.builder("jwks.key.lookups").tag("result", "hit")
+                .description("JWT key lookups answered from the cache").register(meterRegistry);
+        this.misses = Counter.builder("jwks.key.lookups").tag("result", "miss")
+                .description("JWT key lookups for a kid that was not cached").register(meterRegistry);
+        this.refreshFailures = Counter.builder("jwks.refresh.failures")
+                .description("Failed JWKS fetches from AuthService").register(meterRegistry);
+        Gauge.builder("jwks.keys", this, resolver -> resolver.snapshot.verifiers().size())
+                .description("Verification keys currently cached").register(meterRegistry);
+    }
+
+    /**
+     * Verifier for the given kid, or null if AuthService does not publish it
+     */
+    public JWSVerifier getVerifier(String keyId) {
+        JWSVerifier verifier = snapshot.verifiers().get(keyId);
+        if (verifier != null) {
+            hits.increment();
+            return verifier;
+        }
+        misses.increment();
+        refreshOnMiss();
+        return snapshot.verifiers().get(keyId);
+    }
+
+    /**
+     * Concurrent misses wait for one fetch; refetches are rate limited so junk kids cannot hammer AuthService
+     */
+    private synchronized void refreshOnMiss() {
+        if (snapshot.fetchedAt().plus(minRefetchInterval).isAfter(Instant.now())) {
+            return;
+        }
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${auth.jwks.refresh-interval:PT60S}")
+    public synchronized void refresh() {
+        KeySnapshot current = snapshot;
+        try {
+            ResponseEntity<String> response = restClient.get()
+                    .uri(jwksUri)
+                    .headers(headers -> {
+                        if (current.etag() != null) {
+                            headers.setIfNoneMatch(current.etag());
+                        }
+                    })
+                    .retrieve()
+                    .toEntity(String.class);
+
+            snapshot = response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)
+                    ? current.revalidated()
+                    : parse(response.getBody(), response.getHeaders().getETag(), current);
+        } catch (Exception e) {
+            refreshFailures.increment();
+            log.warn("JWKS refresh from {} failed, serving {} cached key(s): {}",
+                    jwksUri, current.verifiers().size(), e.getMessage());
+            snapshot = current.revalidated();
+        }
+    }
+
+    private KeySnapshot parse(String body, String etag, KeySnapshot previous) throws ParseException {
+        Map<String, JWSVerifier> verifiers = new HashMap<>();
+        for (JWK jwk : JWKSet.parse(body).getKeys()) {
+            if (jwk.getKeyID() == null || KeyUse.ENCRYPTION.equals(jwk.getKeyUse())) {
+                continue;
+            }
+            JWSVerifier existing = previous.verifiers().get(jwk.getKeyID());
+            try {
+                verifiers.put(jwk.getKeyID(), existing != null ? existing : createVerifier(jwk));
+            } catch (JOSEException e) {
+                log.warn("Skipping JWKS key {}: {}", jwk.getKeyID(), e.getMessage());
+            }
+        }
+        if (!verifiers.keySet().equals(previous.verifiers().keySet())) {
+            log.info("JWKS updated, verification keys: {}", verifiers.keySet());
+        }
+        return new KeySnapshot(Map.copyOf(verifiers), etag, Instant.now());
+    }
+
+    /** Build a verifier for the key type published by AuthService (RS256, ES256 or EdDSA) */
+    private JWSVerifier createVerifier(JWK jwk) throws JOSEException {
+        if (jwk instanceof RSAKey rsaKey) {
+            return new RSASSAVerifier(rsaKey);
+        }
+        if (jwk instanceof ECKey ecKey) {
+            return new ECDSAVerifier(ecKey);
+        }
+        if (jwk instanceof OctetKeyPair octetKeyPair) {
+            return new Ed25519Verifier(octetKeyPair);
+        }
+        throw new JOSEException("Unsupported key type: " + jwk.getKeyType());
+    }
+
+    private record KeySnapshot(Map<String, JWSVerifier> verifiers, String etag, Instant fetchedAt) {
+
+        static final KeySnapshot EMPTY = new KeySnapshot(Map.of(), null, Instant.EPOCH);
+
+        KeySnapshot revalidated() {
+            return new KeySnapshot(verifiers, etag, Instant.now());
+        }
+    }
+}
@@ -1,49 +1,38 @@
 package com.merigaumata.user.service;
 
-import com.merigaumata.auth.api.DiscoveryApi;
 import com.nimbusds.jose.JWSVerifier;
-import com.nimbusds.jose.crypto.RSASSAVerifier;
-import com.nimbusds.jose.jwk.JWK;
-import com.nimbusds.jose.jwk.JWKSet;
-import com.nimbusds.jose.jwk.RSAKey;
 import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.SignedJWT;
-import java.text.ParseException;
 import java.time.Instant;
 import java.util.Date;
-import java.util.Map;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 @Slf4j
 @Service
 public class JwtValidationService {
 
-  private final DiscoveryApi discoveryApi;
+  private static final String SERVICE_AUDIENCE = "user-service";
+  private static final String SERVICE_ROLE = "ROLE_SERVICE";
 
-  @Value("${auth.jwks-uri:http://auth-service:8081/auth/.well-known/jwks.json}")
-  private String jwksUri;
+  private final JwksKeyResolver jwksKeyResolver;
 
-  public JwtValidationService(DiscoveryApi discoveryApi) {
-    this.discoveryApi = discoveryApi;
+  public JwtValidationService(JwksKeyResolver jwksKeyResolver) {
+    this.jwksKeyResolver = jwksKeyResolver;
   }
 
-  /** Validate JWT token by verifying signature and checking expiration */
+  /** Validate a service JWT by verifying signature, expiration, audience and the service role */
   public JWTClaimsSet validateToken(String token) throws Exception {
     SignedJWT signedJWT = SignedJWT.parse(token);
     String keyId = signedJWT.getHeader().getKeyID();
 
-    // Get public key from JWKS endpoint (cached)
-    JWK jwk = getJWK(keyId);
-    if (jwk == null) {
+    // Prebuilt verifier from the JWKS key cache
+    JWSVerifier verifier = jwksKeyResolver.getVerifier(keyId);
+    if (verifier == null) {
       throw new RuntimeException("Public key not found for kid: " + keyId);
     }
 
-    RSAKey rsaKey = (RSAKey) jwk;
-    JWSVerifier verifier = new RSASSAVerifier(rsaKey);
-
     // Verify signature
     if (!signedJWT.verify(verifier)) {
       throw new RuntimeException("Invalid JWT signature");
@@ -57,21 +46,18 @@ public class JwtValidationService {
       throw new RuntimeException("Token expired");
     }
 
-    // Validate audience (optional but recommended)
-    String audience = claims.getAudience().get(0);
-    if (!"user-service".equals(audience)) {
-      log.warn("Token audience mismatch: expected=user-service, actual={}", audience);
+    // Only other services call this service with a Bearer token. User tokens arrive from the gateway
+    // as an internal assertion, after the gateway has checked them against the revocation list
+    // (blacklist and per-user token epoch), so this path does not repeat that check
+    List<String> audience = claims.getAudience();
+    if (audience == null || !audience.contains(SERVICE_AUDIENCE)) {
+      throw new RuntimeException("Token audience mismatch: expected=" + SERVICE_AUDIENCE + ", actual=" + audience);
+    }
+    List<String> roles = claims.getStringListClaim("roles");
+    if (roles == null || !roles.contains(SERVICE_ROLE)) {
+      throw new RuntimeException("Direct calls require a service token");
     }
 
     return claims;
   }
-
-  /** Fetch public key from JWKS endpoint Cached for 5 minutes to reduce load on AuthService */
-  @Cacheable(value = "jwks", key = "#keyId")
-  public JWK getJWK(String keyId) throws ParseException {
-    Map<String, Object> response = discoveryApi.getJwks().block();
-
-    JWKSet jwkSet = JWKSet.parse(response);
-    return jwkSet.getKeyByKeyId(keyId);
-  }
 }
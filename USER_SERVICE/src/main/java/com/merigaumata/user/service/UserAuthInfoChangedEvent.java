@@ -0,0 +1,8 @@
+package com.merigaumata.user.service;
+
+/**
+ * Published when a user's password, roles or enabled state change.
+ * revokeSessions also ends every session of the user (password change, account removal).
+ */
+public record UserAuthInfoChangedEvent(String username, boolean revokeSessions) {
+}
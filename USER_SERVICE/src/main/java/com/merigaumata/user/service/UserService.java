@@ -1,6 +1,8 @@
 package com.merigaumata.user.service;
 
+import com.merigaumata.common.security.BreachedPasswordIndex;
 import com.merigaumata.user.entity.User;
+import com.merigaumata.user.exception.BusinessException;
 import com.merigaumata.user.exception.DuplicateResourceException;
 import com.merigaumata.user.exception.ResourceNotFoundException;
 import com.merigaumata.user.exception.ValidationException;
@@ -11,11 +13,14 @@ import com.merigaumata.user.repository.UserRepository;
 import java.time.Instant;
 import java.util.HashSet;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.ws.rs.ForbiddenException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -28,8 +33,11 @@ public class UserService {
     private final UserRepository userRepository;
     private final AuditService auditService;
     private final PasswordEncoder passwordEncoder;
+    private final BreachedPasswordIndex breachedPasswordIndex;
     private final UserMapper userMapper;
     private final AuditLogMapper auditLogMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
 
     @Transactional
     public UserResponse createUser(CreateUserRequest request) {
@@ -81,6 +89,17 @@ public class UserService {
         return userMapper.toResponse(user);
     }
 
+    /**
+     * Login-path lookup; reads a projection, bypassing entity hydration and the persistence context
+     */
+    @Transactional(readOnly = true)
+    public UserAuthInfo getUserAuthInfo(String username) {
+        return meterRegistry.timer("user.auth-info.lookup").record(() ->
+                userRepository.findAuthInfoByUsername(username)
+                        .map(userMapper::toAuthInfo)
+                        .orElseThrow(() -> new ResourceNotFoundException("User", username)));
+    }
+
     @Transactional(readOnly = true)
     public Page<UserResponse> getAllUsers(Pageable pageable) {
         Page<User> userPage = userRepository.findAll(pageable);
@@ -141,6 +160,7 @@ public class UserService {
         );
 
         userRepository.delete(user);
+        eventPublisher.publishEvent(new UserAuthInfoChangedEvent(user.getUsername(), true));
     }
 
     @Transactional
@@ -169,9 +189,14 @@ public class UserService {
             throw new ValidationException("Current password is incorrect", null);
         }
 
+        if (breachedPasswordIndex.isBreached(request.getNewPassword())) {
+            throw new ValidationException("Password has appeared in a known data breach, choose a different one", null);
+        }
+
         // Update password
         user.setPassword(passwordEncoder.encode(request.getNewPassword()));
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserAuthInfoChangedEvent(user.getUsername(), true));
 
         auditService.logAction(
                 user.getId(),
@@ -196,6 +221,23 @@ public class UserService {
         return auditService.getUserAuditLogs(userId, pageable);
     }
 
+    /**
+     * Stores a rehash of an unchanged password, e.g. after the auth service upgraded the hash
+     * parameters on login; a concurrent password change wins over the rehash
+     */
+    @Transactional
+    public void updatePasswordHash(String username, UpdatePasswordHashRequest request) {
+        int updated = userRepository.replacePasswordHash(username, request.getCurrentHash(), request.getNewHash());
+        if (updated == 0) {
+            if (!userRepository.existsByUsername(username)) {
+                throw new ResourceNotFoundException("User", username);
+            }
+            throw new BusinessException("Password changed since the hash was read",
+                    HttpStatus.CONFLICT, "PASSWORD_HASH_CONFLICT");
+        }
+        log.debug("Password hash upgraded for user: {}", username);
+    }
+
     @Transactional
     public void updateLastLogin(String userId) {
         userRepository.findById(userId).ifPresent(user -> {
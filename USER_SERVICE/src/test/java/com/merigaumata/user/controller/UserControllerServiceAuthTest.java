@@ -0,0 +1,150 @@
+package com.merigaumata.user.controller;
+
+import com.merigaumata.user.config.SecurityConfig;
+import com.merigaumata.user.mapper.UserMapper;
+import com.merigaumata.user.model.UserAuthInfo;
+import com.merigaumata.user.service.InternalAssertionVerifier;
+import com.merigaumata.user.service.JwksKeyResolver;
+import com.merigaumata.user.service.JwtValidationService;
+import com.merigaumata.user.service.UserService;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.aop.AopAutoConfiguration;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.mapping.JpaMetamodelMappingContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The internal endpoints are called the way AUTH-SERVICE's UsersApi client calls them: on the paths
+ * the UsersApi interface maps, with the cached service JWT as a Bearer token.
+ */
+@WebMvcTest(UserController.class)
+@Import({SecurityConfig.class, JwtValidationService.class})
+// Class-based proxies as in the application; a JDK proxy of the @PreAuthorize controller is not mapped as a handler
+@ImportAutoConfiguration(AopAutoConfiguration.class)
+class UserControllerServiceAuthTest {
+
+    private static final String KEY_ID = "test-key";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private UserService userService;
+    @MockitoBean
+    private UserMapper userMapper;
+    @MockitoBean
+    private JwksKeyResolver jwksKeyResolver;
+    @MockitoBean
+    private InternalAssertionVerifier internalAssertionVerifier;
+    // @EnableJpaAuditing on the application class needs a mapping context the MVC slice does not build
+    @MockitoBean
+    private JpaMetamodelMappingContext jpaMappingContext;
+
+    private ECKey signingKey;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        signingKey = new ECKeyGenerator(Curve.P_256).keyID(KEY_ID).generate();
+        when(jwksKeyResolver.getVerifier(KEY_ID)).thenReturn(new ECDSAVerifier(signingKey.toPublicJWK()));
+    }
+
+    @Test
+    void serviceTokenReadsAuthInfo() throws Exception {
+        when(userService.getUserAuthInfo("alice")).thenReturn(new UserAuthInfo()
+                .username("alice").password("{argon2}hash").roles(List.of("ROLE_USER")).enabled(true));
+
+        mockMvc.perform(get("/users/internal/auth-info/alice")
+                        .header("Authorization", "Bearer " + token("auth-service", "ROLE_SERVICE")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username").value("alice"))
+                .andExpect(jsonPath("$.roles[0]").value("ROLE_USER"));
+    }
+
+    @Test
+    void serviceTokenReplacesPasswordHash() throws Exception {
+        mockMvc.perform(put("/users/internal/alice/password-hash")
+                        .header("Authorization", "Bearer " + token("auth-service", "ROLE_SERVICE"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"currentHash\":\"{argon2}old\",\"newHash\":\"{argon2}new\"}"))
+                .andExpect(status().isNoContent());
+
+        verify(userService).updatePasswordHash(eq("alice"), any());
+    }
+
+    @Test
+    void userTokenCannotReadAuthInfo() throws Exception {
+        mockMvc.perform(get("/users/internal/auth-info/alice")
+                        .header("Authorization", "Bearer " + token("alice", "ROLE_USER")))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    void sharedSecretAloneIsNotAccepted() throws Exception {
+        mockMvc.perform(get("/users/internal/auth-info/alice")
+                        .header("X-Service-Token", "704383aa1300e68fdb449b6ec1aa1f2c"))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    void tokenSignedWithAnotherKeyIsRejected() throws Exception {
+        signingKey = new ECKeyGenerator(Curve.P_256).keyID(KEY_ID).generate();
+
+        mockMvc.perform(get("/users/internal/auth-info/alice")
+                        .header("Authorization", "Bearer " + token("auth-service", "ROLE_SERVICE")))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(userService);
+    }
+
+    // Same shape as ServiceTokenProvider's tokens
+    private String token(String subject, String role) throws Exception {
+        Instant now = Instant.now();
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .subject(subject)
+                .issuer("auth-service")
+                .audience("user-service")
+                .jwtID(UUID.randomUUID().toString())
+                .issueTime(Date.from(now))
+                .expirationTime(Date.from(now.plusSeconds(900)))
+                .claim("roles", List.of(role))
+                .claim("scopes", List.of("service:internal", "user:create", "user:read"))
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.ES256).keyID(KEY_ID).build(), claims);
+        jwt.sign(new ECDSASigner(signingKey));
+        return jwt.serialize();
+    }
+}
@@ -0,0 +1,78 @@
+package com.merigaumata.user.repository;
+
+import com.merigaumata.user.entity.User;
+import com.merigaumata.user.mapper.UserMapper;
+import com.merigaumata.user.model.UserAuthInfo;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jpa.test.autoconfigure.TestEntityManager;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The string_agg auth lookup is a native query, so only running it checks the SQL and the
+ * projection's column aliases.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.flyway.enabled=false"
+})
+class UserRepositoryTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private final UserMapper userMapper = Mappers.getMapper(UserMapper.class);
+
+    @Test
+    void findAuthInfoAggregatesRoles() {
+        User alice = persist("alice", Set.of("ROLE_USER", "ROLE_ADMIN"));
+
+        UserAuthInfo authInfo = userMapper.toAuthInfo(userRepository.findAuthInfoByUsername("alice").orElseThrow());
+
+        assertThat(authInfo.getId()).isEqualTo(alice.getId());
+        assertThat(authInfo.getUsername()).isEqualTo("alice");
+        assertThat(authInfo.getPassword()).isEqualTo("{argon2}hash");
+        assertThat(authInfo.getEnabled()).isTrue();
+        assertThat(authInfo.getRoles()).containsExactlyInAnyOrder("ROLE_USER", "ROLE_ADMIN");
+    }
+
+    @Test
+    void userWithoutRolesMapsToEmptyList() {
+        User bob = persist("bob", Set.of("ROLE_USER"));
+        // Persisting always adds ROLE_USER, so the roles are removed afterwards
+        bob.getRoles().clear();
+        entityManager.flush();
+        entityManager.clear();
+
+        UserAuthProjection projection = userRepository.findAuthInfoByUsername("bob").orElseThrow();
+
+        assertThat(projection.getRoles()).isNull();
+        assertThat(userMapper.toAuthInfo(projection).getRoles()).isEqualTo(List.of());
+    }
+
+    @Test
+    void findAuthInfoDoesNotMatchOtherUsers() {
+        persist("alice", Set.of("ROLE_USER"));
+
+        assertThat(userRepository.findAuthInfoByUsername("mallory")).isEmpty();
+    }
+
+    private User persist(String username, Set<String> roles) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("{argon2}hash");
+        user.getRoles().addAll(roles);
+        entityManager.persistAndFlush(user);
+        return user;
+    }
+}